@@ -0,0 +1,123 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single value draws, one generator per thread: the cost of a call to the
+ * generator of each kind, in ns/op. Bounded draws are in
+ * {@link RngBoundedBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RngBenchmark {
+
+	@Param({ "Pcg32", "Pcg64", "XSRandom", "Random", "SplittableRandom", "ThreadLocalRandom" })
+	public String generator;
+
+	private RandomGenerator rng;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		rng = newGenerator(generator, 42L);
+	}
+
+	/**
+	 * @param name a generator name, as in the benchmark parameters
+	 * @param seed a seed (ignored by ThreadLocalRandom)
+	 * @return a generator of this kind
+	 */
+	static RandomGenerator newGenerator(String name, long seed) {
+		switch (name) {
+		case "Pcg32":
+			return new Pcg32(seed, 54L);
+		case "SynchronizedPcg32":
+			return new SynchronizedPcg32(seed, 54L);
+		case "Pcg64":
+			return new Pcg64(seed, 54L);
+		case "XSRandom":
+			return new XSRandom(seed);
+		case "Random":
+			return new Random(seed);
+		case "SplittableRandom":
+			return new SplittableRandom(seed);
+		case "ThreadLocalRandom":
+			// must be called from the thread using it
+			return ThreadLocalRandom.current();
+		default:
+			throw new IllegalArgumentException("unknown generator " + name);
+		}
+	}
+
+	@Benchmark
+	public int nextInt() {
+		return rng.nextInt();
+	}
+
+	@Benchmark
+	public double nextDouble() {
+		return rng.nextDouble();
+	}
+
+	@Benchmark
+	public double nextGaussian() {
+		return rng.nextGaussian();
+	}
+
+	@Benchmark
+	public double nextExponential() {
+		return rng.nextExponential();
+	}
+
+}
@@ -0,0 +1,164 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bulk fills of arrays, compared to loops of single value draws. Results are
+ * in ns per value.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RngBulkBenchmark {
+
+	private static final int SIZE = 4096;
+
+	private final int[] ints = new int[SIZE];
+	private final double[] doubles = new double[SIZE];
+
+	private Pcg32 pcg32;
+	private Pcg64 pcg64;
+	private XSRandom xsRandom;
+	private MultiXSRandom multiXSRandom;
+	private Random random;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		pcg32 = new Pcg32(42L, 54L);
+		pcg64 = new Pcg64(42L, 54L);
+		xsRandom = new XSRandom(42L);
+		multiXSRandom = new MultiXSRandom(42L);
+		random = new Random(42L);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public int[] pcg32IntsLoop() {
+		for (int i = 0; i < SIZE; i++)
+			ints[i] = pcg32.nextInt(1000003);
+		return ints;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public int[] pcg32IntsBulk() {
+		pcg32.nextInts(ints, 1000003);
+		return ints;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] pcg32DoublesLoop() {
+		for (int i = 0; i < SIZE; i++)
+			doubles[i] = pcg32.nextDouble();
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] pcg32DoublesBulk() {
+		pcg32.nextDoubles(doubles);
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] pcg32GaussiansBulk() {
+		pcg32.nextGaussians(doubles);
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] pcg64DoublesBulk() {
+		pcg64.nextDoubles(doubles);
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] pcg64GaussiansBulk() {
+		pcg64.nextGaussians(doubles);
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] xsRandomDoublesLoop() {
+		for (int i = 0; i < SIZE; i++)
+			doubles[i] = xsRandom.nextDouble();
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] multiXSRandomDoublesBulk() {
+		multiXSRandom.nextDoubles(doubles);
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] randomDoublesLoop() {
+		for (int i = 0; i < SIZE; i++)
+			doubles[i] = random.nextDouble();
+		return doubles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public double[] randomGaussiansLoop() {
+		for (int i = 0; i < SIZE; i++)
+			doubles[i] = random.nextGaussian();
+		return doubles;
+	}
+
+}
@@ -0,0 +1,103 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Draws from 4 threads, either from a single generator shared by all threads
+ * (only for the thread-safe ones) or from one generator per thread. Results are
+ * in ns/op per thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+public class RngContendedBenchmark {
+
+	/** One generator shared by all threads. */
+	@State(Scope.Benchmark)
+	public static class Shared {
+		// parameter names must differ between states, otherwise JMH mixes them
+		@Param({ "SynchronizedPcg32", "Random" })
+		public String sharedGenerator;
+
+		RandomGenerator rng;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			rng = RngBenchmark.newGenerator(sharedGenerator, 42L);
+		}
+	}
+
+	/** One generator per thread. */
+	@State(Scope.Thread)
+	public static class PerThread {
+		@Param({ "Pcg32", "Pcg64", "ThreadLocalRandom" })
+		public String threadGenerator;
+
+		RandomGenerator rng;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			rng = RngBenchmark.newGenerator(threadGenerator, Thread.currentThread().getId());
+		}
+	}
+
+	@Benchmark
+	public double sharedNextDouble(Shared state) {
+		return state.rng.nextDouble();
+	}
+
+	@Benchmark
+	public double perThreadNextDouble(PerThread state) {
+		return state.rng.nextDouble();
+	}
+
+}
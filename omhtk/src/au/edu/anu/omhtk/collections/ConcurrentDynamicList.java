@@ -0,0 +1,453 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import fr.cnrs.iees.omhtk.Sizeable;
+import fr.cnrs.iees.omhtk.Textable;
+
+/**
+ * A thread-safe version of {@link DynamicList}, for lists shared between
+ * threads (e.g. producer and consumer threads). It is built on a
+ * {@link ConcurrentLinkedDeque}, i.e. a lock-free linked deque:
+ * {@code offerFirst/offerLast/pollFirst/pollLast} (and all other insertions and
+ * removals) use atomic compare-and-set operations instead of locks, so that
+ * they scale with the number of threads.
+ * <p>
+ * As in a {@link DynamicList}, iterators are <em>self-correcting</em>: they
+ * never throw {@link java.util.ConcurrentModificationException} and skip the
+ * items removed (by this or any other thread) while looping. To achieve this,
+ * each item is wrapped in an entry which is atomically marked as removed before
+ * being unlinked (the equivalent of {@link ListNode#isRemoved()}), and
+ * iterators check this mark before returning an item. Marked entries which
+ * cannot be unlinked at once are unlinked by the next iterator passing them.
+ * Iterators are weakly consistent: items added concurrently may or may not be
+ * returned.
+ * </p>
+ * <p>
+ * CAUTION: unlike in {@link DynamicList}, {@link #size()} is not a constant-time
+ * operation, {@code null} items are not permitted, and there is no positional
+ * access. Bulk operations such as {@link #addAll(java.util.Collection)} are not
+ * atomic, and neither is {@link #addUnique(Object)} with respect to concurrent
+ * insertions of the same item.
+ * </p>
+ *
+ * @param <T> the list item type.
+ */
+public class ConcurrentDynamicList<T> extends AbstractCollection<T> implements Deque<T>, Sizeable, Textable {
+
+	// an item with a 'removed' mark
+	private static final class Entry<T> {
+
+		private static final VarHandle REMOVED;
+		static {
+			try {
+				REMOVED = MethodHandles.lookup().findVarHandle(Entry.class, "removed", boolean.class);
+			} catch (ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		final T item;
+		volatile boolean removed = false;
+
+		Entry(T item) {
+			this.item = Objects.requireNonNull(item);
+		}
+
+		// atomically marks this entry as removed - false if it already was
+		boolean markRemoved() {
+			return REMOVED.compareAndSet(this, false, true);
+		}
+
+	}
+
+	private final ConcurrentLinkedDeque<Entry<T>> entries = new ConcurrentLinkedDeque<>();
+
+	// Constructors
+
+	/**
+	 * Default constructor.
+	 */
+	public ConcurrentDynamicList() {
+		super();
+	}
+
+	/**
+	 * Construct a ConcurrentDynamicList with a simple array of items.
+	 * 
+	 * @param items Items to add to the list.
+	 */
+	@SafeVarargs
+	public ConcurrentDynamicList(T... items) {
+		super();
+		for (T item : items)
+			add(item);
+	}
+
+	/**
+	 * Construct a ConcurrentDynamicList from an iterable.
+	 * 
+	 * @param iterable The interable over the items of type {@code T}.
+	 */
+	public ConcurrentDynamicList(Iterable<T> iterable) {
+		super();
+		for (T item : iterable)
+			add(item);
+	}
+
+	/**
+	 * An iterator which skips removed items.
+	 */
+	private class CorrectingIterator implements Iterator<T> {
+
+		private final Iterator<Entry<T>> it;
+		private Entry<T> nextEntry = null;
+		private Entry<T> lastReturned = null;
+		// true if it has moved past lastReturned
+		private boolean advanced = false;
+
+		CorrectingIterator(Iterator<Entry<T>> it) {
+			this.it = it;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (nextEntry == null || nextEntry.removed) {
+				// a marked entry just returned by it is unlinked in passing
+				if (nextEntry != null)
+					it.remove();
+				if (!it.hasNext()) {
+					nextEntry = null;
+					return false;
+				}
+				nextEntry = it.next();
+				advanced = true;
+			}
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			lastReturned = nextEntry;
+			nextEntry = null;
+			advanced = false;
+			return lastReturned.item;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			// unlinked in O(1) if it is still positioned on it, otherwise left
+			// marked for a later traversal to unlink
+			if (lastReturned.markRemoved() && !advanced)
+				it.remove();
+			lastReturned = null;
+		}
+
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new CorrectingIterator(entries.iterator());
+	}
+
+	/**
+	 * Returns a correcting iterator on this list (same as {@link #iterator()}).
+	 *
+	 * @return a correcting iterator
+	 */
+	public Iterator<T> correctingIterator() {
+		return iterator();
+	}
+
+	@Override
+	public Iterator<T> descendingIterator() {
+		return new CorrectingIterator(entries.descendingIterator());
+	}
+
+	// removes the first (or last) entry not already removed - null if none
+	private T pollEntry(boolean first) {
+		for (;;) {
+			Entry<T> entry = first ? entries.pollFirst() : entries.pollLast();
+			if (entry == null)
+				return null;
+			if (entry.markRemoved())
+				return entry.item;
+		}
+	}
+
+	// returns the first (or last) item not removed - null if none
+	private T peekEntry(boolean first) {
+		Iterator<T> it = first ? iterator() : descendingIterator();
+		return it.hasNext() ? it.next() : null;
+	}
+
+	// removes the first (or last) occurrence of o
+	private boolean removeOccurrence(Object o, boolean first) {
+		Objects.requireNonNull(o);
+		Iterator<Entry<T>> it = first ? entries.iterator() : entries.descendingIterator();
+		while (it.hasNext()) {
+			Entry<T> entry = it.next();
+			if (entry.removed)
+				it.remove();
+			else if (o.equals(entry.item) && entry.markRemoved()) {
+				it.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Collection
+	//
+
+	@Override
+	public int size() {
+		int result = 0;
+		for (Entry<T> entry : entries)
+			if (!entry.removed)
+				result++;
+		return result;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return peekEntry(true) == null;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o == null)
+			return false;
+		for (T item : this)
+			if (o.equals(item))
+				return true;
+		return false;
+	}
+
+	@Override
+	public boolean add(T e) {
+		addLast(e);
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return removeOccurrence(o, true);
+	}
+
+	@Override
+	public void clear() {
+		while (pollEntry(true) != null)
+			;
+	}
+
+	// Deque
+	//
+
+	@Override
+	public void addFirst(T e) {
+		entries.addFirst(new Entry<>(e));
+	}
+
+	@Override
+	public void addLast(T e) {
+		entries.addLast(new Entry<>(e));
+	}
+
+	@Override
+	public boolean offerFirst(T e) {
+		addFirst(e);
+		return true;
+	}
+
+	@Override
+	public boolean offerLast(T e) {
+		addLast(e);
+		return true;
+	}
+
+	@Override
+	public T removeFirst() {
+		T result = pollEntry(true);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+
+	@Override
+	public T removeLast() {
+		T result = pollEntry(false);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+
+	@Override
+	public T pollFirst() {
+		return pollEntry(true);
+	}
+
+	@Override
+	public T pollLast() {
+		return pollEntry(false);
+	}
+
+	@Override
+	public T getFirst() {
+		T result = peekEntry(true);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+
+	@Override
+	public T getLast() {
+		T result = peekEntry(false);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+
+	@Override
+	public T peekFirst() {
+		return peekEntry(true);
+	}
+
+	@Override
+	public T peekLast() {
+		return peekEntry(false);
+	}
+
+	@Override
+	public boolean removeFirstOccurrence(Object o) {
+		return removeOccurrence(o, true);
+	}
+
+	@Override
+	public boolean removeLastOccurrence(Object o) {
+		return removeOccurrence(o, false);
+	}
+
+	@Override
+	public boolean offer(T e) {
+		return offerLast(e);
+	}
+
+	@Override
+	public T remove() {
+		return removeFirst();
+	}
+
+	@Override
+	public T poll() {
+		return pollFirst();
+	}
+
+	@Override
+	public T element() {
+		return getFirst();
+	}
+
+	@Override
+	public T peek() {
+		return peekFirst();
+	}
+
+	@Override
+	public void push(T e) {
+		addFirst(e);
+	}
+
+	@Override
+	public T pop() {
+		return removeFirst();
+	}
+
+	// Additional helper methods
+	//
+
+	/**
+	 * Adds an item to the list only if it is not already present.
+	 * 
+	 * @param item the item to add
+	 * @return {@code true} if the item was added, {@code false} otherwise
+	 */
+	public boolean addUnique(T item) {
+		if (contains(item))
+			return false;
+		else
+			return add(item);
+	}
+
+	// Object
+	//
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("{");
+		for (T item : this)
+			if (item instanceof Textable)
+				result.append(((Textable) item).toShortString()).append(", ");
+			else
+				result.append(item.toString()).append(", ");
+		if (result.length() > 1)
+			result.delete(result.length() - 2, result.length());
+		result.append('}');
+		return result.toString();
+	}
+
+	// Textable
+	//
+	@Override
+	public String toUniqueString() {
+		// what Object.toString() would return
+		return getClass().getName() + "@" + Integer.toHexString(hashCode());
+	}
+
+	@Override
+	public String toShortString() {
+		return "[ConcurrentDynamicList of " + size() + " element(s)]";
+	}
+
+}
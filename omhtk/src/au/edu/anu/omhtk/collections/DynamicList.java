@@ -31,15 +31,25 @@
  **************************************************************************/
 package au.edu.anu.omhtk.collections;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import fr.cnrs.iees.omhtk.Sizeable;
 import fr.cnrs.iees.omhtk.Textable;
@@ -60,6 +70,42 @@ import fr.cnrs.iees.omhtk.Textable;
  * obsolete. For example, to remove items from a list can be done with
  * instructions such as {@code list.sublist(from,to).clear()}.
  * </p>
+ * <p>
+ * By default, positional access ({@link #get(int) get(i)}, {@link #set(int,Object)
+ * set(i,e)}, {@link #add(int,Object) add(i,e)}, {@link #remove(int) remove(i)})
+ * requires walking the list and costs O(n). When constructed with
+ * {@link Option#INDEXED}, the list nodes are also stored in an array, so that
+ * {@code get(i)} and {@code set(i,e)} are immediate. An insertion or removal at
+ * position {@code i} shifts the shorter part of this array, i.e. costs
+ * O(min(i,n-i)). To keep removals made while iterating cheap, a removal that
+ * would shift more than a few slots leaves a hole in the array instead: holes
+ * are filled in a single O(n) pass at the next positional access or insertion
+ * inside the list, so that removing any number of items in one loop costs
+ * O(n) overall. Insertions and removals at both ends remain O(1) (amortized).
+ * Iterators behave the same in both modes.
+ * </p>
+ * <p>
+ * Similarly, membership tests ({@link #contains(Object) contains(o)},
+ * {@link #addUnique(Object) addUnique(e)}) and removal by value
+ * ({@link #remove(Object) remove(o)}) are linear scans, unless the list is
+ * constructed with {@link Option#HASHED} or {@link Option#IDENTITY_HASHED}: a
+ * hash table of the items is then maintained alongside the nodes, making these
+ * operations O(1) (expected). Items must not change their hash code while in a
+ * hashed list. Lists with many duplicate items gain little from this option, as
+ * finding the first of several equal items still requires a scan.
+ * </p>
+ * <p>
+ * Every insertion creates a list node, which becomes garbage when removed. With
+ * {@link Option#RECYCLING}, removed nodes are kept in a bounded pool and reused
+ * by later insertions, so that a steady flow of insertions and removals (e.g.
+ * when using the list as a queue or stack) does not generate garbage. Since an
+ * iterator may still point at a removed node, removed nodes are reused in the
+ * order they were removed, and only after 1024 later removals. Up to 2048
+ * removed nodes are kept, so that bursts of up to 1024 insertions also reuse
+ * nodes. Iterators need not run to completion, but an iterator left pointing at
+ * a node which has since been reused throws a
+ * {@link ConcurrentModificationException} when next used.
+ * </p>
  *
  * @author Shayne Flint - loooong ago. <br/>
  *         refactored by Jacques Gignoux - 30 Nov. 2018
@@ -73,6 +119,73 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 	protected ListNode<T> tail = null;
 	protected int size = 0;
 
+	/**
+	 * Options that can be passed to the {@link DynamicList#DynamicList(Option...)
+	 * DynamicList(Option...)} constructor.
+	 */
+	public enum Option {
+		/**
+		 * Maintain an array of list nodes alongside the links to provide constant-time
+		 * positional access. This costs one array slot per item (plus some spare room
+		 * at both ends). Insertions and removals at position {@code i} cost
+		 * O(min(i,n-i)), except that removals far from both ends are deferred: they
+		 * cost O(1) each, plus a single O(n) pass at the next positional access or
+		 * insertion inside the list.
+		 */
+		INDEXED,
+		/**
+		 * Maintain a hash table of items (using {@link Object#equals(Object)
+		 * equals(...)} and {@link Object#hashCode() hashCode()}) to provide
+		 * constant-time membership tests and removal by value.
+		 */
+		HASHED,
+		/**
+		 * Same as {@link #HASHED}, but items are compared by identity ({@code ==})
+		 * instead of {@code equals(...)}.
+		 */
+		IDENTITY_HASHED,
+		/**
+		 * Reuse removed list nodes for new insertions, so that insertions and removals
+		 * do not generate garbage.
+		 */
+		RECYCLING,
+	}
+
+	// in recycling mode, the number of removed nodes waiting before the oldest one
+	// is reused, and the maximal number of removed nodes kept
+	private static final int REUSE_DELAY = 1024;
+	private static final int MAX_FREE_NODES = 2 * REUSE_DELAY;
+
+	// the hash table entry for an item
+	private static class Membership<T> {
+		// one of the nodes holding the item, or null if unknown
+		ListNode<T> node;
+		// the number of nodes holding the item
+		int count = 1;
+
+		Membership(ListNode<T> node) {
+			this.node = node;
+		}
+	}
+
+	private static final int MIN_INDEX_CAPACITY = 16;
+	// in indexed mode, removals shifting more slots than this leave a hole
+	private static final int MAX_SHIFT = 32;
+
+	// In indexed mode, the list nodes are stored in index[offset..end[, in list
+	// order but possibly with null holes left by removals (the slot field of every
+	// node gives its position in this array). There are no holes when
+	// end == offset + size. null when not in indexed mode.
+	private ListNode<T>[] index = null;
+	private int offset = 0;
+	private int end = 0;
+	// In hashed mode, the items of this list (null when not in hashed mode).
+	private Map<Object, Membership<T>> members = null;
+	private boolean identity = false;
+	// In recycling mode, the removed nodes, oldest first (null when not in
+	// recycling mode).
+	private ArrayDeque<ListNode<T>> freeNodes = null;
+
 	// Constructors
 
 	/**
@@ -104,6 +217,61 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 			add(item);
 	}
 
+	/**
+	 * Construct an empty DynamicList with options.
+	 * 
+	 * @param options the {@link Option}s to use for this list.
+	 */
+	public DynamicList(Option... options) {
+		super();
+		for (Option option : options)
+			switch (option) {
+			case INDEXED:
+				reindex(MIN_INDEX_CAPACITY);
+				break;
+			case HASHED:
+				members = new HashMap<>();
+				identity = false;
+				break;
+			case IDENTITY_HASHED:
+				members = new IdentityHashMap<>();
+				identity = true;
+				break;
+			case RECYCLING:
+				freeNodes = new ArrayDeque<>(MAX_FREE_NODES);
+				break;
+			}
+	}
+
+	/**
+	 * @return {@code true} if this list was constructed with
+	 *         {@link Option#INDEXED}.
+	 */
+	public boolean isIndexed() {
+		return index != null;
+	}
+
+	/**
+	 * @return {@code true} if this list was constructed with {@link Option#HASHED}
+	 *         or {@link Option#IDENTITY_HASHED}.
+	 */
+	public boolean isHashed() {
+		return members != null;
+	}
+
+	/**
+	 * @return {@code true} if this list was constructed with
+	 *         {@link Option#RECYCLING}.
+	 */
+	public boolean isRecycling() {
+		return freeNodes != null;
+	}
+
+	// for tests: the number of removed nodes kept for reuse
+	int nFreeNodes() {
+		return freeNodes == null ? 0 : freeNodes.size();
+	}
+
 	
 	@Override
 	public int size() {
@@ -118,10 +286,9 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 
 	@Override
 	public boolean contains(Object o) {
-		for (T item : this)
-			if (item.equals(o))
-				return true;
-		return false;
+		if (members != null)
+			return members.containsKey(o);
+		return find(o) != null;
 	}
 
 	private boolean isRemovedItem(ListNode<T> node) {
@@ -139,18 +306,37 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 	 */
 	private class CorrectingIterator implements Iterator<T> {
 
-		protected ListNode<T> current = head;
+		protected ListNode<T> current;
 		protected boolean correcting;
 		protected ListNode<T> lastReturned = null;
+		// stamps of current and lastReturned when they were reached, to detect
+		// their recycling
+		protected int currentStamp;
+		protected int lastReturnedStamp;
 
 		public CorrectingIterator(boolean correcting) {
 			this.correcting = correcting;
+			moveTo(head);
+		}
+
+		protected void moveTo(ListNode<T> node) {
+			current = node;
+			if (node != null)
+				currentStamp = node.stamp;
+		}
+
+		protected void setLastReturned(ListNode<T> node) {
+			lastReturned = node;
+			lastReturnedStamp = node.stamp;
 		}
 
 		protected void correctIterator() {
+			checkStamp(current, currentStamp);
 			if (correcting) {
-				if (isRemovedItem(current))
-					current = current.next;
+				// several consecutive nodes may have been removed. They were removed after
+				// current, hence recycled after it.
+				while (isRemovedItem(current))
+					moveTo(current.next);
 			} else {
 				if (isRemovedItem(current))
 					throw new IllegalStateException("Non-correcting iterator is pointing to a removed item");
@@ -168,8 +354,8 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 			correctIterator();
 			if (current == null)
 				throw new NoSuchElementException();
-			lastReturned = current;
-			current = current.next;
+			setLastReturned(current);
+			moveTo(current.next);
 			return lastReturned.item;
 		}
 
@@ -177,6 +363,7 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		public void remove() {
 			if (lastReturned == null)
 				throw new IllegalStateException();
+			checkStamp(lastReturned, lastReturnedStamp);
 			removeNode(lastReturned);
 			lastReturned = null;
 		}
@@ -237,8 +424,27 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		return a;
 	}
 
-	private void addToEnd(T item) {
-		ListNode<T> node = new ListNode<T>(item, null, tail);
+	// all new nodes must be created here
+	private ListNode<T> makeNode(T item, ListNode<T> next, ListNode<T> prev) {
+		ListNode<T> node;
+		// only nodes removed long ago are reused (cf. recycle(...))
+		if (freeNodes != null && freeNodes.size() > REUSE_DELAY) {
+			node = freeNodes.pollFirst();
+			node.stamp++;
+			node.item = item;
+			node.next = next;
+			node.prev = prev;
+		} else
+			node = new ListNode<T>(item, next, prev);
+		if (members != null)
+			addMember(node);
+		return node;
+	}
+
+	private ListNode<T> addToEnd(T item) {
+		ListNode<T> node = makeNode(item, null, tail);
+		if (index != null)
+			indexInsert(node, size);
 		if (size == 0) {
 			head = node;
 		} else {
@@ -246,6 +452,34 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		}
 		tail = node;
 		size++;
+		return node;
+	}
+
+	private ListNode<T> addToStart(T item) {
+		ListNode<T> node = makeNode(item, head, null);
+		if (index != null)
+			indexInsert(node, 0);
+		if (size == 0) {
+			tail = node;
+		} else {
+			head.prev = node;
+		}
+		head = node;
+		size++;
+		return node;
+	}
+
+	// inserts a new node before succ (which must be a node of this list)
+	private ListNode<T> addBefore(T item, ListNode<T> succ) {
+		if (succ == head)
+			return addToStart(item);
+		ListNode<T> node = makeNode(item, succ, succ.prev);
+		if (index != null)
+			indexInsert(node, indexOf(succ));
+		succ.prev.next = node;
+		succ.prev = node;
+		size++;
+		return node;
 	}
 
 	@Override
@@ -254,19 +488,98 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		return true;
 	}
 
+	private boolean matches(T item, Object o) {
+		if (identity)
+			return item == o;
+		return item != null && item.equals(o);
+	}
+
+	// returns the first node holding o, or null
 	private ListNode<T> find(Object o) {
+		Membership<T> m = null;
+		if (members != null) {
+			m = members.get(o);
+			if (m == null)
+				return null;
+			if (m.count == 1 && m.node != null)
+				return m.node;
+		}
 		ListNode<T> node = head;
 		while (node != null)
-			if (node.item != null && node.item.equals(o))
-				return node;
+			if (matches(node.item, o))
+				break;
 			else
 				node = node.next;
-		return null;
+		if (m != null && m.count == 1)
+			m.node = node;
+		return node;
+	}
+
+	// Recycling mode management
+	//
+
+	// called on every removed node (once unlinked). Its next link is kept so that
+	// iterators pointing at it can move on. Nodes are reused by makeNode(...) once
+	// more than REUSE_DELAY are waiting.
+	private void recycle(ListNode<T> node) {
+		if (freeNodes == null)
+			return;
+		node.item = null;
+		// the oldest node is dropped, and must not be trusted by iterators any more
+		if (freeNodes.size() == MAX_FREE_NODES)
+			freeNodes.pollFirst().stamp++;
+		freeNodes.addLast(node);
+	}
+
+	// throws an exception if an iterator's node was recycled since the iterator
+	// reached it
+	private static void checkStamp(ListNode<?> node, int stamp) {
+		if (node != null && node.stamp != stamp)
+			throw new ConcurrentModificationException("Node reused since the iterator reached it");
+	}
+
+	// Hashed mode management
+	//
+
+	private void addMember(ListNode<T> node) {
+		Membership<T> m = members.get(node.item);
+		if (m == null)
+			members.put(node.item, new Membership<T>(node));
+		else
+			m.count++;
+	}
+
+	private void removeMember(ListNode<T> node) {
+		Membership<T> m = members.get(node.item);
+		if (m == null)
+			return;
+		if (--m.count == 0)
+			members.remove(node.item);
+		else if (m.node == node)
+			m.node = null;
+	}
+
+	// replaces the item of a node, keeping the hash table up to date
+	private void setItem(ListNode<T> node, T item) {
+		if (members != null)
+			removeMember(node);
+		node.item = item;
+		if (members != null)
+			addMember(node);
 	}
 
 	private void removeNode(ListNode<T> n) {
-		if (n == null)
+		removeNode(n, true);
+	}
+
+	// updateIndex=false leaves the index array stale: the caller must reindex
+	private void removeNode(ListNode<T> n, boolean updateIndex) {
+		if ((n == null) || n.isRemoved())
 			throw new NoSuchElementException();
+		if (index != null && updateIndex)
+			indexRemove(n);
+		if (members != null)
+			removeMember(n);
 		if (head == n && tail == n) {
 			n.next = null;
 			head = null;
@@ -284,6 +597,7 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		}
 		n.prev = n;
 		size--;
+		recycle(n);
 	}
 
 	@Override
@@ -314,12 +628,12 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 
 	@Override
 	public boolean addAll(int index, Collection<? extends T> c) {
-		ListIterator<T> iter = this.listIterator(index);
-		for (T item : c) {
-			iter.add(item);
-			iter.next();
-		}
-		return true;
+		if (index == size)
+			return addAll(c);
+		ListNode<T> succ = nodeAt(index);
+		for (T item : c)
+			addBefore(item, succ);
+		return !c.isEmpty();
 	}
 
 	/**
@@ -340,35 +654,53 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		return result;
 	}
 
-	private void removeAll(Object o) {
-		ListNode<T> node = find(o);
-		while (node != null) {
-			removeNode(node);
-			node = find(o);
+	// returns a collection with the same content as c and a fast contains(...)
+	// method, consistent with the way this list compares items
+	private Collection<?> lookupOf(Collection<?> c) {
+		// a hashed list only if it compares items the same way
+		if ((c instanceof DynamicList<?> list) && list.isHashed() && list.identity == identity)
+			return c;
+		if (identity) {
+			Set<Object> result = Collections.newSetFromMap(new IdentityHashMap<>());
+			result.addAll(c);
+			return result;
 		}
+		if (c instanceof Set)
+			return c;
+		return new HashSet<>(c);
 	}
 
-	@Override
-	public boolean removeAll(Collection<?> c) {
+	// removes, in a single pass, all the items that are (remove=true) or are not
+	// (remove=false) in lookup. In indexed mode, the index array is rebuilt once
+	// at the end rather than shifted at every removal.
+	private boolean removeMatching(Collection<?> lookup, boolean remove) {
 		boolean modified = false;
-		for (Object o : c) {
-			removeAll(o);
-			modified = true;
+		ListNode<T> node = head;
+		while (node != null) {
+			ListNode<T> next = node.next;
+			if (lookup.contains(node.item) == remove) {
+				removeNode(node, false);
+				modified = true;
+			}
+			node = next;
 		}
+		if (modified && index != null)
+			reindex(index.length);
 		return modified;
 	}
 
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		if (c.isEmpty() || isEmpty())
+			return false;
+		return removeMatching(lookupOf(c), true);
+	}
+
 	@Override
 	public boolean retainAll(Collection<?> c) {
-		boolean modified = false;
-		Iterator<T> it = iterator();
-		while (it.hasNext()) {
-			if (!c.contains(it.next())) {
-				it.remove();
-				modified = true;
-			}
-		}
-		return modified;
+		if (isEmpty())
+			return false;
+		return removeMatching(lookupOf(c), false);
 	}
 
 	@Override
@@ -376,16 +708,25 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		// invalidate all nodes so that checked iterators know that the nodes have been
 		// deleted
 		//
+		// (next is nulled so that correcting iterators stop)
 		ListNode<T> node = head;
 		while (node != null) {
 			ListNode<T> next = node.next;
 			node.prev = node;
-			node.next = node;
+			node.next = null;
+			recycle(node);
 			node = next;
 		}
 		head = null;
 		tail = null;
 		size = 0;
+		if (index != null) {
+			Arrays.fill(index, null);
+			offset = index.length / 2;
+			end = offset;
+		}
+		if (members != null)
+			members.clear();
 	}
 
 	@Override
@@ -395,50 +736,40 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 
 	@Override
 	public T set(int index, T element) {
-		nodeAt(index).item = element;
-		return element;
+		ListNode<T> node = nodeAt(index);
+		T previous = node.item;
+		setItem(node, element);
+		return previous;
 	}
 
 	@Override
 	public void add(int index, T element) {
-		ListNode<T> node = nodeAt(index);
-		ListNode<T> newNode = new ListNode<T>(element, node.next, node);
-		if (index < size - 1)
-			node.next.prev = newNode;
+		if (index == size)
+			addToEnd(element);
 		else
-			tail = newNode;
-		node.next = newNode;
+			addBefore(element, nodeAt(index));
 	}
 
 	@Override
 	public T remove(int index) {
 		ListNode<T> node = nodeAt(index);
-		if (size == 1) {
-			node.next = node;
-			head = null;
-			tail = null;
-		} else if (index == 0) {
-			head = node.next;
-			node.next.prev = null;
-		} else if (index == size - 1) {
-			tail = node.prev;
-			node.prev.next = null;
-			node.next = node;
-		} else {
-			node.prev.next = node.next;
-			node.next.prev = node.prev;
-		}
-		node.prev = node;
-		size--;
-		return node.item;
+		T item = node.item;
+		removeNode(node);
+		return item;
 	}
 
 	@Override
 	public int indexOf(Object o) {
+		if (members != null) {
+			ListNode<T> node = find(o);
+			if (node == null)
+				throw new NoSuchElementException();
+			return indexOf(node);
+		}
 		int index = 0;
 		ListNode<T> n = head;
 		while (n != null) {
-			if (n.item.equals(o))
+			if (matches(n.item, o))
 				return index;
 			index++;
 			n = n.next;
@@ -448,10 +779,17 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 
 	@Override
 	public int lastIndexOf(Object o) {
+		if (members != null) {
+			Membership<T> m = members.get(o);
+			if (m == null)
+				throw new NoSuchElementException();
+			if (m.count == 1)
+				return indexOf(find(o));
+		}
 		int index = size - 1;
 		ListNode<T> n = tail;
 		while (n != null) {
-			if (n.item.equals(o))
+			if (matches(n.item, o))
 				return index;
 			index--;
 			n = n.prev;
@@ -460,6 +798,10 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 	}
 
 	private int indexOf(ListNode<T> node) {
+		if (this.index != null) {
+			fillHoles();
+			return node.slot - offset;
+		}
 		int index = 0;
 		ListNode<T> n = head;
 		while (n != null) {
@@ -478,13 +820,121 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 			return head;
 		else if (index == size - 1)
 			return tail;
-		else {
+		else if (this.index != null) {
+			fillHoles();
+			return this.index[offset + index];
+		}
+		else if (index < size / 2) {
 			ListNode<T> result = head;
 			for (int i = 0; i < index; i++)
 				result = result.next;
 			return result;
+		} else {
+			ListNode<T> result = tail;
+			for (int i = size - 1; i > index; i--)
+				result = result.prev;
+			return result;
+		}
+
+	}
+
+	// Indexed mode management
+	//
+
+	// rebuilds the index array with the given capacity, centering the list in it
+	@SuppressWarnings("unchecked")
+	private void reindex(int capacity) {
+		ListNode<T>[] newIndex = (ListNode<T>[]) new ListNode<?>[capacity];
+		int slot = (capacity - size) / 2;
+		offset = slot;
+		for (ListNode<T> n = head; n != null; n = n.next) {
+			newIndex[slot] = n;
+			n.slot = slot++;
 		}
+		end = slot;
+		index = newIndex;
+	}
 
+	// removes the holes from the index array, if any
+	private void fillHoles() {
+		if (end > offset + size)
+			reindex(index.length);
+	}
+
+	// makes sure there is a free slot before (atStart) or after (!atStart) the list
+	// in the index array. The list is recentered if the array is less than half
+	// full, otherwise the array is doubled.
+	private void ensureRoom(boolean atStart) {
+		if (atStart ? offset > 0 : end < index.length)
+			return;
+		if (size < index.length / 2)
+			reindex(index.length);
+		else
+			reindex(Math.max(MIN_INDEX_CAPACITY, 2 * index.length));
+	}
+
+	// inserts node at position pos of the list in the index array, shifting the
+	// shorter side. Insertions at both ends do not need to fill the holes.
+	// Must be called before the node is linked and size is updated.
+	private void indexInsert(ListNode<T> node, int pos) {
+		if (pos == 0) {
+			ensureRoom(true);
+			index[--offset] = node;
+			node.slot = offset;
+			return;
+		}
+		if (pos == size) {
+			ensureRoom(false);
+			index[end] = node;
+			node.slot = end++;
+			return;
+		}
+		fillHoles();
+		if (pos < size - pos) {
+			ensureRoom(true);
+			System.arraycopy(index, offset, index, offset - 1, pos);
+			offset--;
+			for (int s = offset; s < offset + pos; s++)
+				index[s].slot = s;
+		} else {
+			ensureRoom(false);
+			int from = offset + pos;
+			System.arraycopy(index, from, index, from + 1, size - pos);
+			for (int s = from + 1; s <= offset + size; s++)
+				index[s].slot = s;
+			end++;
+		}
+		index[offset + pos] = node;
+		node.slot = offset + pos;
+	}
+
+	// removes node from the index array, shifting the shorter side, or leaving a
+	// hole if there are holes already or the shift is long.
+	// Must be called before size is updated.
+	private void indexRemove(ListNode<T> node) {
+		int pos = node.slot - offset;
+		if (end > offset + size || Math.min(pos, size - 1 - pos) > MAX_SHIFT) {
+			index[node.slot] = null;
+			while (offset < end && index[offset] == null)
+				offset++;
+			while (end > offset && index[end - 1] == null)
+				end--;
+			return;
+		}
+		if (pos < size - 1 - pos) {
+			System.arraycopy(index, offset, index, offset + 1, pos);
+			index[offset] = null;
+			offset++;
+			for (int s = offset; s <= node.slot; s++)
+				index[s].slot = s;
+		} else {
+			int last = offset + size - 1;
+			System.arraycopy(index, node.slot + 1, index, node.slot, last - node.slot);
+			index[last] = null;
+			for (int s = node.slot; s < last; s++)
+				index[s].slot = s;
+			end--;
+		}
 	}
 
 	/**
@@ -499,9 +949,9 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		public CorrectingListIterator(boolean correcting, int index) {
 			super(correcting);
 			if (size() == 0)
-				current = null;
+				moveTo(null);
 			else
-				current = nodeAt(index);
+				moveTo(nodeAt(index));
 		}
 
 		@Override
@@ -515,8 +965,8 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 			correctIterator();
 			if (current == null)
 				throw new NoSuchElementException();
-			lastReturned = current;
-			current = current.prev;
+			setLastReturned(current);
+			moveTo(current.prev);
 			return lastReturned.item;
 		}
 
@@ -551,8 +1001,8 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		public void set(T e) {
 			if (lastReturned == null)
 				throw new IllegalStateException();
-			else
-				lastReturned.item = e;
+			checkStamp(lastReturned, lastReturnedStamp);
+			setItem(lastReturned, e);
 		}
 
 		@Override
@@ -560,14 +1010,7 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 			correctIterator();
 			if (current == null)
 				throw new NoSuchElementException();
-
-			ListNode<T> newNode = new ListNode<T>(e, current, current.prev);
-			if (current.prev == null)
-				head = newNode;
-			else
-				current.prev.next = newNode;
-			current.prev = newNode;
-			size++;
+			addBefore(e, current);
 		}
 
 		public String toString() {
@@ -611,6 +1054,135 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		return new CorrectingListIterator(correcting, index);
 	}
 
+	// Spliterators for (parallel) streams
+	//
+
+	// minimal number of items worth splitting
+	private static final int MIN_SPLIT_SIZE = 64;
+
+	/**
+	 * A spliterator on list nodes, split by walking to the middle of its range.
+	 */
+	private class NodeSpliterator implements Spliterator<T> {
+
+		private ListNode<T> current;
+		private int remaining;
+
+		NodeSpliterator(ListNode<T> first, int count) {
+			current = first;
+			remaining = count;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			while (remaining > 0 && current != null) {
+				ListNode<T> node = current;
+				current = current.next;
+				remaining--;
+				if (!node.isRemoved()) {
+					action.accept(node.item);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			if (remaining < 2 * MIN_SPLIT_SIZE)
+				return null;
+			int half = remaining / 2;
+			NodeSpliterator prefix = new NodeSpliterator(current, half);
+			for (int i = 0; i < half && current != null; i++)
+				current = current.next;
+			remaining -= half;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED;
+		}
+
+	}
+
+	/**
+	 * A spliterator on the index array of an indexed list, split in constant time.
+	 */
+	private class IndexSpliterator implements Spliterator<T> {
+
+		private final ListNode<T>[] nodes;
+		private int from;
+		private final int to;
+
+		IndexSpliterator(ListNode<T>[] nodes, int from, int to) {
+			this.nodes = nodes;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			while (from < to) {
+				ListNode<T> node = nodes[from++];
+				if (!node.isRemoved()) {
+					action.accept(node.item);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			for (; from < to; from++)
+				if (!nodes[from].isRemoved())
+					action.accept(nodes[from].item);
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			if (to - from < 2 * MIN_SPLIT_SIZE)
+				return null;
+			int mid = (from + to) >>> 1;
+			IndexSpliterator prefix = new IndexSpliterator(nodes, from, mid);
+			from = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return to - from;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED;
+		}
+
+	}
+
+	/**
+	 * Returns a spliterator over the items of this list, which splits according
+	 * to the (known) size of the list. In indexed mode (cf. {@link Option#INDEXED})
+	 * splitting is immediate, otherwise it requires walking to the middle of the
+	 * range to split. The list must not be structurally modified while the
+	 * spliterator is in use (e.g. while a stream is running on the list).
+	 */
+	@Override
+	public Spliterator<T> spliterator() {
+		if (index != null) {
+			fillHoles();
+			return new IndexSpliterator(index, offset, end);
+		}
+		return new NodeSpliterator(head, size);
+	}
+
 	@Override
 	public List<T> subList(int fromIndex, int toIndex) {
 		DynamicList<T> result = new DynamicList<T>();
@@ -654,14 +1226,7 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 
 	@Override
 	public void addFirst(T e) {
-		ListNode<T> node = new ListNode<T>(e, head, null);
-		if (size == 0) {
-			tail = node;
-		} else {
-			head.prev = node;
-		}
-		head = node;
-		size++;
+		addToStart(e);
 	}
 
 	@Override
@@ -739,12 +1304,7 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 
 	@Override
 	public boolean removeFirstOccurrence(Object o) {
-		try {
-			remove(indexOf(o));
-			return true;
-		} catch (Exception e) {
-			return false;
-		}
+		return remove(o);
 	}
 
 	@Override
@@ -815,21 +1375,32 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 
 	private class CorrectingDescendingIterator implements Iterator<T> {
 
-		protected ListNode<T> current = tail;
+		protected ListNode<T> current;
 		protected boolean correcting;
 		protected ListNode<T> lastReturned = null;
+		// cf. CorrectingIterator
+		protected int currentStamp;
+		protected int lastReturnedStamp;
 
 		public CorrectingDescendingIterator(boolean correcting) {
 			this.correcting = correcting;
+			moveTo(tail);
+		}
+
+		protected void moveTo(ListNode<T> node) {
+			current = node;
+			if (node != null)
+				currentStamp = node.stamp;
 		}
 
 		protected void correctIterator() {
+			checkStamp(current, currentStamp);
 			if (isRemovedItem(current)) {
 				if (correcting) {
 					if (current.next == null) {
-						current = tail;
+						moveTo(tail);
 					} else {
-						current = current.next.prev;
+						moveTo(current.next.prev);
 					}
 				} else {
 					throw new IllegalStateException("Non-correcting iterator is pointing to a removed item");
@@ -849,7 +1420,8 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 			if (current == null)
 				throw new NoSuchElementException();
 			lastReturned = current;
-			current = current.prev;
+			lastReturnedStamp = current.stamp;
+			moveTo(current.prev);
 			return lastReturned.item;
 		}
 
@@ -857,6 +1429,7 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 		public void remove() {
 			if (lastReturned == null)
 				throw new IllegalStateException();
+			checkStamp(lastReturned, lastReturnedStamp);
 			removeNode(lastReturned);
 			lastReturned = null;
 		}
@@ -878,11 +1451,13 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 	 */
 	public DynamicList<T> difference(DynamicList<T> list) {
 		DynamicList<T> result = new DynamicList<T>();
+		Collection<?> mine = lookupOf(this);
+		Collection<?> theirs = lookupOf(list);
 		for (T item : list)
-			if (!this.contains(item))
+			if (!mine.contains(item))
 				result.add(item);
 		for (T item : this)
-			if (!list.contains(item))
+			if (!theirs.contains(item))
 				result.add(item);
 		return result;
 	}
@@ -895,8 +1470,9 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 	 */
 	public DynamicList<T> intersection(DynamicList<T> list) {
 		DynamicList<T> result = new DynamicList<T>();
+		Collection<?> mine = lookupOf(this);
 		for (T item : list)
-			if (this.contains(item))
+			if (mine.contains(item))
 				result.add(item);
 		return result;
 	}
@@ -904,12 +1480,119 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 	/**
 	 * Sorts this list using a {@link java.util.Comparator Comparator}. Renamed from
 	 * sort to sortList to avoid conflict with JDK 1.8 List.sort().
+	 * <p>
+	 * This is a stable, in-place natural merge sort: the list nodes are relinked
+	 * rather than copied, and no memory is allocated. Already sorted lists are
+	 * detected in a single pass, and nearly sorted ones (i.e. made of a few
+	 * ascending or descending runs) are sorted in fewer passes. Live iterators
+	 * continue from their current item in the new order.
+	 * </p>
 	 *
-	 * @param comparator The comparator to use for sorting.
+	 * @param comparator The comparator to use for sorting ({@code null} for the
+	 *                   natural ordering of items).
 	 */
+	@SuppressWarnings("unchecked")
 	public void sortList(Comparator<? super T> comparator) {
-		if (this.size() > 0)
-			Collections.sort(this, comparator);
+		if (comparator == null)
+			comparator = (Comparator<? super T>) Comparator.naturalOrder();
+		if (isSorted(comparator))
+			return;
+		// 1. cut the list into ascending runs, reversing the strictly descending ones
+		// (which preserves stability). Runs are null-terminated chains of nodes
+		// (through next), themselves chained through the prev field of their first
+		// node.
+		ListNode<T> runs = null;
+		ListNode<T> lastRun = null;
+		int nRuns = 0;
+		ListNode<T> node = head;
+		while (node != null) {
+			ListNode<T> run;
+			if (node.next != null && comparator.compare(node.item, node.next.item) > 0) {
+				run = node;
+				node = node.next;
+				run.next = null;
+				while (node != null && comparator.compare(run.item, node.item) > 0) {
+					ListNode<T> next = node.next;
+					node.next = run;
+					run = node;
+					node = next;
+				}
+			} else {
+				run = node;
+				while (node.next != null && comparator.compare(node.item, node.next.item) <= 0)
+					node = node.next;
+				ListNode<T> next = node.next;
+				node.next = null;
+				node = next;
+			}
+			run.prev = null;
+			if (lastRun == null)
+				runs = run;
+			else
+				lastRun.prev = run;
+			lastRun = run;
+			nRuns++;
+		}
+		// 2. merge runs pairwise until only one is left
+		while (nRuns > 1) {
+			ListNode<T> run = runs;
+			runs = null;
+			lastRun = null;
+			nRuns = 0;
+			while (run != null) {
+				ListNode<T> other = run.prev;
+				ListNode<T> following = (other == null) ? null : other.prev;
+				ListNode<T> merged = (other == null) ? run : mergeRuns(run, other, comparator);
+				merged.prev = null;
+				if (lastRun == null)
+					runs = merged;
+				else
+					lastRun.prev = merged;
+				lastRun = merged;
+				nRuns++;
+				run = following;
+			}
+		}
+		// 3. restore the backward links
+		head = runs;
+		ListNode<T> previous = null;
+		for (node = head; node != null; node = node.next) {
+			node.prev = previous;
+			previous = node;
+		}
+		tail = previous;
+		if (index != null)
+			reindex(index.length);
+	}
+
+	// stable merge of two null-terminated chains of nodes, a preceding b
+	private ListNode<T> mergeRuns(ListNode<T> a, ListNode<T> b, Comparator<? super T> comparator) {
+		ListNode<T> result;
+		if (comparator.compare(b.item, a.item) < 0) {
+			result = b;
+			b = b.next;
+		} else {
+			result = a;
+			a = a.next;
+		}
+		ListNode<T> last = result;
+		while (a != null && b != null)
+			if (comparator.compare(b.item, a.item) < 0) {
+				last.next = b;
+				last = b;
+				b = b.next;
+			} else {
+				last.next = a;
+				last = a;
+				a = a.next;
+			}
+		last.next = (a != null) ? a : b;
+		return result;
+	}
+
+	@Override
+	public void sort(Comparator<? super T> c) {
+		sortList(c);
 	}
 
 	/**
@@ -919,19 +1602,12 @@ public class DynamicList<T> implements List<T>, Deque<T>, Queue<T>, Sizeable, Te
 	 * @return {@code true} if the list is in the comparator order, {@code false}
 	 *         otherwise
 	 */
-	public boolean isSorted(Comparator<T> comparator) {
-		Iterator<T> iter = iterator();
-		if (!iter.hasNext()) {
+	public boolean isSorted(Comparator<? super T> comparator) {
+		if (head == null)
 			return true;
-		}
-		T previous = iter.next();
-		while (iter.hasNext()) {
-			T next = iter.next();
-			if (comparator.compare(previous, next) > 0) {
+		for (ListNode<T> node = head; node.next != null; node = node.next)
+			if (comparator.compare(node.item, node.next.item) > 0)
 				return false;
-			}
-			previous = next;
-		}
 		return true;
 	}
 
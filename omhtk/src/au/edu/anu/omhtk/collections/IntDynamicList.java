@@ -0,0 +1,401 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.collections;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link DynamicList} of {@code int} values, stored in primitive arrays
+ * instead of boxed {@link Integer}s. It has the same behaviour as a
+ * {@code DynamicList<Integer>} (in particular its iterator is self-correcting,
+ * i.e. it skips the values removed while looping) and mirrors the methods of
+ * {@link java.util.List List} and {@link java.util.Deque Deque} with primitive
+ * arguments. Methods that would be ambiguous with {@code int} arguments are
+ * renamed: {@link #removeAt(int)} removes by position, and
+ * {@link #removeFirstOccurrence(int)} by value.
+ * <p>
+ * Methods of {@link java.util.Deque Deque} which return {@code null} when the
+ * list is empty take instead the value to return in this case, e.g.
+ * {@link #pollFirst(int)}.
+ * </p>
+ * <p>
+ * Each value costs 20 bytes, instead of a list node and a boxed value in a
+ * {@code DynamicList<Integer>}.
+ * </p>
+ * 
+ * @see PrimitiveDynamicList
+ */
+public class IntDynamicList extends PrimitiveDynamicList {
+
+	private int[] values = new int[DEFAULT_CAPACITY];
+
+	/**
+	 * Default constructor.
+	 */
+	public IntDynamicList() {
+		super();
+	}
+
+	/**
+	 * Construct an IntDynamicList with a simple array of values.
+	 * 
+	 * @param values values to add to the list
+	 */
+	public IntDynamicList(int... values) {
+		super();
+		for (int value : values)
+			add(value);
+	}
+
+	@Override
+	protected void resizeValues(int capacity) {
+		values = Arrays.copyOf(values, capacity);
+	}
+
+	@Override
+	protected void appendValue(StringBuilder sb, int slot) {
+		sb.append(values[slot]);
+	}
+
+	private int newSlot(int value) {
+		int slot = newSlot();
+		values[slot] = value;
+		return slot;
+	}
+
+	// List
+	//
+
+	/**
+	 * Appends a value at the end of this list.
+	 * 
+	 * @param value the value to add
+	 * @return {@code true}
+	 */
+	public boolean add(int value) {
+		linkLast(newSlot(value));
+		return true;
+	}
+
+	/**
+	 * Inserts a value at the specified position in this list.
+	 * 
+	 * @param index the position
+	 * @param value the value to insert
+	 */
+	public void add(int index, int value) {
+		linkAt(index, newSlot(value));
+	}
+
+	/**
+	 * Appends all values of an array at the end of this list.
+	 * 
+	 * @param values the values to add
+	 * @return {@code true} if the list changed
+	 */
+	public boolean addAll(int... values) {
+		for (int value : values)
+			add(value);
+		return values.length > 0;
+	}
+
+	/**
+	 * @param index a position in the list
+	 * @return the value at this position
+	 */
+	public int get(int index) {
+		return values[slotAt(index)];
+	}
+
+	/**
+	 * Replaces the value at the specified position in this list.
+	 * 
+	 * @param index the position
+	 * @param value the new value
+	 * @return the previous value
+	 */
+	public int set(int index, int value) {
+		int slot = slotAt(index);
+		int result = values[slot];
+		values[slot] = value;
+		return result;
+	}
+
+	/**
+	 * Removes the value at the specified position in this list.
+	 * 
+	 * @param index the position
+	 * @return the removed value
+	 */
+	public int removeAt(int index) {
+		return values[unlinkAt(index)];
+	}
+
+	/**
+	 * @param value a value
+	 * @return {@code true} if this list contains the value
+	 */
+	public boolean contains(int value) {
+		return findSlot(slot -> values[slot] == value) != NIL;
+	}
+
+	/**
+	 * @param value a value
+	 * @return the position of the first occurrence of the value in this list, -1
+	 *         if absent
+	 */
+	public int indexOf(int value) {
+		return indexOfSlot(slot -> values[slot] == value);
+	}
+
+	/**
+	 * @param value a value
+	 * @return the position of the last occurrence of the value in this list, -1 if
+	 *         absent
+	 */
+	public int lastIndexOf(int value) {
+		return lastIndexOfSlot(slot -> values[slot] == value);
+	}
+
+	/**
+	 * @return the values of this list, in proper sequence
+	 */
+	public int[] toArray() {
+		int[] result = new int[size];
+		int i = 0;
+		for (int slot = head; slot != NIL; slot = next[slot])
+			result[i++] = values[slot];
+		return result;
+	}
+
+	/**
+	 * @return a self-correcting iterator over the values of this list
+	 */
+	public PrimitiveIterator.OfInt iterator() {
+		return new IntIterator(false);
+	}
+
+	/**
+	 * @return a sequential stream over the values of this list
+	 */
+	public IntStream stream() {
+		return StreamSupport.intStream(new IntSpliterator(), false);
+	}
+
+	private class IntSpliterator extends SlotSpliterator implements Spliterator.OfInt {
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (!hasNext())
+				return false;
+			action.accept(values[nextSlot()]);
+			return true;
+		}
+
+		@Override
+		public Spliterator.OfInt trySplit() {
+			return null;
+		}
+
+	}
+
+	private class IntIterator extends SlotIterator implements PrimitiveIterator.OfInt {
+
+		IntIterator(boolean descending) {
+			super(descending);
+		}
+
+		@Override
+		public int nextInt() {
+			return values[nextSlot()];
+		}
+
+	}
+
+	// Deque
+	//
+
+	/**
+	 * Inserts a value at the front of this list.
+	 * 
+	 * @param value the value to add
+	 */
+	public void addFirst(int value) {
+		linkFirst(newSlot(value));
+	}
+
+	/**
+	 * Appends a value at the end of this list.
+	 * 
+	 * @param value the value to add
+	 */
+	public void addLast(int value) {
+		linkLast(newSlot(value));
+	}
+
+	/**
+	 * Inserts a value at the front of this list.
+	 * 
+	 * @param value the value to add
+	 * @return {@code true}
+	 */
+	public boolean offerFirst(int value) {
+		addFirst(value);
+		return true;
+	}
+
+	/**
+	 * Appends a value at the end of this list.
+	 * 
+	 * @param value the value to add
+	 * @return {@code true}
+	 */
+	public boolean offerLast(int value) {
+		addLast(value);
+		return true;
+	}
+
+	/**
+	 * @return the first value of this list
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public int getFirst() {
+		return values[firstSlot()];
+	}
+
+	/**
+	 * @return the last value of this list
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public int getLast() {
+		return values[lastSlot()];
+	}
+
+	/**
+	 * @param ifEmpty the value to return if this list is empty
+	 * @return the first value of this list, or {@code ifEmpty} if it is empty
+	 */
+	public int peekFirst(int ifEmpty) {
+		return size == 0 ? ifEmpty : values[head];
+	}
+
+	/**
+	 * @param ifEmpty the value to return if this list is empty
+	 * @return the last value of this list, or {@code ifEmpty} if it is empty
+	 */
+	public int peekLast(int ifEmpty) {
+		return size == 0 ? ifEmpty : values[tail];
+	}
+
+	/**
+	 * Removes the first value of this list.
+	 * 
+	 * @return the removed value
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public int removeFirst() {
+		return values[unlinkFirst()];
+	}
+
+	/**
+	 * Removes the last value of this list.
+	 * 
+	 * @return the removed value
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public int removeLast() {
+		return values[unlinkLast()];
+	}
+
+	/**
+	 * Removes the first value of this list, if any.
+	 * 
+	 * @param ifEmpty the value to return if this list is empty
+	 * @return the removed value, or {@code ifEmpty} if this list is empty
+	 */
+	public int pollFirst(int ifEmpty) {
+		return size == 0 ? ifEmpty : removeFirst();
+	}
+
+	/**
+	 * Removes the last value of this list, if any.
+	 * 
+	 * @param ifEmpty the value to return if this list is empty
+	 * @return the removed value, or {@code ifEmpty} if this list is empty
+	 */
+	public int pollLast(int ifEmpty) {
+		return size == 0 ? ifEmpty : removeLast();
+	}
+
+	/**
+	 * Pushes a value on the front of this list (same as {@link #addFirst(int)}).
+	 * 
+	 * @param value the value to add
+	 */
+	public void push(int value) {
+		addFirst(value);
+	}
+
+	/**
+	 * Pops the value at the front of this list (same as {@link #removeFirst()}).
+	 * 
+	 * @return the removed value
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public int pop() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first occurrence of a value from this list.
+	 * 
+	 * @param value the value to remove
+	 * @return {@code true} if the value was found
+	 */
+	public boolean removeFirstOccurrence(int value) {
+		return unlinkFirstMatch(slot -> values[slot] == value);
+	}
+
+	/**
+	 * @return a self-correcting iterator over the values of this list, in reverse
+	 *         order
+	 */
+	public PrimitiveIterator.OfInt descendingIterator() {
+		return new IntIterator(true);
+	}
+
+}
@@ -43,6 +43,10 @@ public class ListNode<T> {
 	protected T item;
 	protected ListNode<T> next;
 	protected ListNode<T> prev;
+	/** Position of this node in the index array of an indexed {@link DynamicList} */
+	protected int slot = -1;
+	/** Number of times this node was reused by a recycling {@link DynamicList} */
+	protected int stamp = 0;
 
 	/**
 	 * ListNode within package constructor.
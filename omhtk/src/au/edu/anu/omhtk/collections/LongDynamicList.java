@@ -0,0 +1,401 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.collections;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link DynamicList} of {@code long} values, stored in primitive arrays
+ * instead of boxed {@link Long}s. It has the same behaviour as a
+ * {@code DynamicList<Long>} (in particular its iterator is self-correcting,
+ * i.e. it skips the values removed while looping) and mirrors the methods of
+ * {@link java.util.List List} and {@link java.util.Deque Deque} with primitive
+ * arguments. Methods that would be ambiguous with {@code int} arguments are
+ * named as in {@link IntDynamicList}: {@link #removeAt(int)} removes by
+ * position, and {@link #removeFirstOccurrence(long)} by value.
+ * <p>
+ * Methods of {@link java.util.Deque Deque} which return {@code null} when the
+ * list is empty take instead the value to return in this case, e.g.
+ * {@link #pollFirst(long)}.
+ * </p>
+ * <p>
+ * Each value costs 24 bytes, instead of a list node and a boxed value in a
+ * {@code DynamicList<Long>}.
+ * </p>
+ * 
+ * @see PrimitiveDynamicList
+ */
+public class LongDynamicList extends PrimitiveDynamicList {
+
+	private long[] values = new long[DEFAULT_CAPACITY];
+
+	/**
+	 * Default constructor.
+	 */
+	public LongDynamicList() {
+		super();
+	}
+
+	/**
+	 * Construct a LongDynamicList with a simple array of values.
+	 * 
+	 * @param values values to add to the list
+	 */
+	public LongDynamicList(long... values) {
+		super();
+		for (long value : values)
+			add(value);
+	}
+
+	@Override
+	protected void resizeValues(int capacity) {
+		values = Arrays.copyOf(values, capacity);
+	}
+
+	@Override
+	protected void appendValue(StringBuilder sb, int slot) {
+		sb.append(values[slot]);
+	}
+
+	private int newSlot(long value) {
+		int slot = newSlot();
+		values[slot] = value;
+		return slot;
+	}
+
+	// List
+	//
+
+	/**
+	 * Appends a value at the end of this list.
+	 * 
+	 * @param value the value to add
+	 * @return {@code true}
+	 */
+	public boolean add(long value) {
+		linkLast(newSlot(value));
+		return true;
+	}
+
+	/**
+	 * Inserts a value at the specified position in this list.
+	 * 
+	 * @param index the position
+	 * @param value the value to insert
+	 */
+	public void add(int index, long value) {
+		linkAt(index, newSlot(value));
+	}
+
+	/**
+	 * Appends all values of an array at the end of this list.
+	 * 
+	 * @param values the values to add
+	 * @return {@code true} if the list changed
+	 */
+	public boolean addAll(long... values) {
+		for (long value : values)
+			add(value);
+		return values.length > 0;
+	}
+
+	/**
+	 * @param index a position in the list
+	 * @return the value at this position
+	 */
+	public long get(int index) {
+		return values[slotAt(index)];
+	}
+
+	/**
+	 * Replaces the value at the specified position in this list.
+	 * 
+	 * @param index the position
+	 * @param value the new value
+	 * @return the previous value
+	 */
+	public long set(int index, long value) {
+		int slot = slotAt(index);
+		long result = values[slot];
+		values[slot] = value;
+		return result;
+	}
+
+	/**
+	 * Removes the value at the specified position in this list.
+	 * 
+	 * @param index the position
+	 * @return the removed value
+	 */
+	public long removeAt(int index) {
+		return values[unlinkAt(index)];
+	}
+
+	/**
+	 * @param value a value
+	 * @return {@code true} if this list contains the value
+	 */
+	public boolean contains(long value) {
+		return findSlot(slot -> values[slot] == value) != NIL;
+	}
+
+	/**
+	 * @param value a value
+	 * @return the position of the first occurrence of the value in this list, -1
+	 *         if absent
+	 */
+	public int indexOf(long value) {
+		return indexOfSlot(slot -> values[slot] == value);
+	}
+
+	/**
+	 * @param value a value
+	 * @return the position of the last occurrence of the value in this list, -1 if
+	 *         absent
+	 */
+	public int lastIndexOf(long value) {
+		return lastIndexOfSlot(slot -> values[slot] == value);
+	}
+
+	/**
+	 * @return the values of this list, in proper sequence
+	 */
+	public long[] toArray() {
+		long[] result = new long[size];
+		int i = 0;
+		for (int slot = head; slot != NIL; slot = next[slot])
+			result[i++] = values[slot];
+		return result;
+	}
+
+	/**
+	 * @return a self-correcting iterator over the values of this list
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new LongIterator(false);
+	}
+
+	/**
+	 * @return a sequential stream over the values of this list
+	 */
+	public LongStream stream() {
+		return StreamSupport.longStream(new LongSpliterator(), false);
+	}
+
+	private class LongSpliterator extends SlotSpliterator implements Spliterator.OfLong {
+
+		@Override
+		public boolean tryAdvance(LongConsumer action) {
+			if (!hasNext())
+				return false;
+			action.accept(values[nextSlot()]);
+			return true;
+		}
+
+		@Override
+		public Spliterator.OfLong trySplit() {
+			return null;
+		}
+
+	}
+
+	private class LongIterator extends SlotIterator implements PrimitiveIterator.OfLong {
+
+		LongIterator(boolean descending) {
+			super(descending);
+		}
+
+		@Override
+		public long nextLong() {
+			return values[nextSlot()];
+		}
+
+	}
+
+	// Deque
+	//
+
+	/**
+	 * Inserts a value at the front of this list.
+	 * 
+	 * @param value the value to add
+	 */
+	public void addFirst(long value) {
+		linkFirst(newSlot(value));
+	}
+
+	/**
+	 * Appends a value at the end of this list.
+	 * 
+	 * @param value the value to add
+	 */
+	public void addLast(long value) {
+		linkLast(newSlot(value));
+	}
+
+	/**
+	 * Inserts a value at the front of this list.
+	 * 
+	 * @param value the value to add
+	 * @return {@code true}
+	 */
+	public boolean offerFirst(long value) {
+		addFirst(value);
+		return true;
+	}
+
+	/**
+	 * Appends a value at the end of this list.
+	 * 
+	 * @param value the value to add
+	 * @return {@code true}
+	 */
+	public boolean offerLast(long value) {
+		addLast(value);
+		return true;
+	}
+
+	/**
+	 * @return the first value of this list
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public long getFirst() {
+		return values[firstSlot()];
+	}
+
+	/**
+	 * @return the last value of this list
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public long getLast() {
+		return values[lastSlot()];
+	}
+
+	/**
+	 * @param ifEmpty the value to return if this list is empty
+	 * @return the first value of this list, or {@code ifEmpty} if it is empty
+	 */
+	public long peekFirst(long ifEmpty) {
+		return size == 0 ? ifEmpty : values[head];
+	}
+
+	/**
+	 * @param ifEmpty the value to return if this list is empty
+	 * @return the last value of this list, or {@code ifEmpty} if it is empty
+	 */
+	public long peekLast(long ifEmpty) {
+		return size == 0 ? ifEmpty : values[tail];
+	}
+
+	/**
+	 * Removes the first value of this list.
+	 * 
+	 * @return the removed value
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public long removeFirst() {
+		return values[unlinkFirst()];
+	}
+
+	/**
+	 * Removes the last value of this list.
+	 * 
+	 * @return the removed value
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public long removeLast() {
+		return values[unlinkLast()];
+	}
+
+	/**
+	 * Removes the first value of this list, if any.
+	 * 
+	 * @param ifEmpty the value to return if this list is empty
+	 * @return the removed value, or {@code ifEmpty} if this list is empty
+	 */
+	public long pollFirst(long ifEmpty) {
+		return size == 0 ? ifEmpty : removeFirst();
+	}
+
+	/**
+	 * Removes the last value of this list, if any.
+	 * 
+	 * @param ifEmpty the value to return if this list is empty
+	 * @return the removed value, or {@code ifEmpty} if this list is empty
+	 */
+	public long pollLast(long ifEmpty) {
+		return size == 0 ? ifEmpty : removeLast();
+	}
+
+	/**
+	 * Pushes a value on the front of this list (same as {@link #addFirst(long)}).
+	 * 
+	 * @param value the value to add
+	 */
+	public void push(long value) {
+		addFirst(value);
+	}
+
+	/**
+	 * Pops the value at the front of this list (same as {@link #removeFirst()}).
+	 * 
+	 * @return the removed value
+	 * @throws java.util.NoSuchElementException if this list is empty
+	 */
+	public long pop() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first occurrence of a value from this list.
+	 * 
+	 * @param value the value to remove
+	 * @return {@code true} if the value was found
+	 */
+	public boolean removeFirstOccurrence(long value) {
+		return unlinkFirstMatch(slot -> values[slot] == value);
+	}
+
+	/**
+	 * @return a self-correcting iterator over the values of this list, in reverse
+	 *         order
+	 */
+	public PrimitiveIterator.OfLong descendingIterator() {
+		return new LongIterator(true);
+	}
+
+}
@@ -0,0 +1,438 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.collections;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.IntPredicate;
+
+import fr.cnrs.iees.omhtk.Sizeable;
+import fr.cnrs.iees.omhtk.Textable;
+
+/**
+ * Common ancestor of the primitive-specialized variants of {@link DynamicList}
+ * ({@link IntDynamicList}, {@link LongDynamicList}, {@link DoubleDynamicList}).
+ * <p>
+ * Items are stored in <em>slots</em>: the values are stored in a primitive array
+ * by descendants, and this class manages two {@code int} arrays of forward and
+ * backward links between slots, so that the list behaves exactly like a
+ * {@link DynamicList}: O(1) insertions and removals at both ends, and
+ * self-correcting iterators which skip items removed while looping. As in
+ * {@link ListNode}, a removed slot is marked by linking it backwards to itself.
+ * </p>
+ * <p>
+ * Slots of removed items are reused by later insertions. Since an iterator may
+ * still point at a removed slot, slots are reused in the order they were
+ * removed, and only when more than 1024 of them are waiting, so that at most
+ * 1024 slots are kept unused. Iterators need not run to completion, but an
+ * iterator left pointing at a slot which has since been reused throws a
+ * {@link ConcurrentModificationException} when next used.
+ * </p>
+ */
+abstract class PrimitiveDynamicList implements Sizeable, Textable {
+
+	/** The 'null' slot */
+	protected static final int NIL = -1;
+	/** Initial number of slots */
+	protected static final int DEFAULT_CAPACITY = 16;
+	// number of removed slots waiting before the oldest one is reused
+	private static final int REUSE_DELAY = 1024;
+
+	protected int[] next;
+	protected int[] prev;
+	// number of times each slot was reused
+	private int[] stamp;
+	protected int head = NIL;
+	protected int tail = NIL;
+	protected int size = 0;
+	// slots above this one have never been used
+	private int used = 0;
+	// removed slots, oldest first, in a circular buffer
+	private int[] freeSlots;
+	private int firstFree = 0;
+	private int nFree = 0;
+	// incremented by clear() to invalidate running iterators
+	private int generation = 0;
+
+	protected PrimitiveDynamicList() {
+		next = new int[DEFAULT_CAPACITY];
+		prev = new int[DEFAULT_CAPACITY];
+		stamp = new int[DEFAULT_CAPACITY];
+		freeSlots = new int[DEFAULT_CAPACITY];
+	}
+
+	/**
+	 * Resizes the array of values to the new capacity, keeping its content.
+	 * 
+	 * @param capacity the new number of slots
+	 */
+	protected abstract void resizeValues(int capacity);
+
+	/**
+	 * Appends the value stored in a slot to a string builder.
+	 * 
+	 * @param sb   the string builder
+	 * @param slot the slot
+	 */
+	protected abstract void appendValue(StringBuilder sb, int slot);
+
+	// Slot management
+	//
+
+	/**
+	 * @return a slot for a new value, to be linked by one of the link methods
+	 */
+	protected int newSlot() {
+		int slot;
+		if (nFree > REUSE_DELAY) {
+			slot = freeSlots[firstFree];
+			firstFree = (firstFree + 1) % freeSlots.length;
+			nFree--;
+			stamp[slot]++;
+		} else {
+			if (used == next.length) {
+				int capacity = 2 * next.length;
+				next = Arrays.copyOf(next, capacity);
+				prev = Arrays.copyOf(prev, capacity);
+				stamp = Arrays.copyOf(stamp, capacity);
+				resizeValues(capacity);
+				// unwrap the circular buffer
+				int[] free = new int[capacity];
+				for (int i = 0; i < nFree; i++)
+					free[i] = freeSlots[(firstFree + i) % freeSlots.length];
+				freeSlots = free;
+				firstFree = 0;
+			}
+			slot = used++;
+		}
+		return slot;
+	}
+
+	protected void linkLast(int slot) {
+		next[slot] = NIL;
+		prev[slot] = tail;
+		if (tail == NIL)
+			head = slot;
+		else
+			next[tail] = slot;
+		tail = slot;
+		size++;
+	}
+
+	protected void linkFirst(int slot) {
+		next[slot] = head;
+		prev[slot] = NIL;
+		if (head == NIL)
+			tail = slot;
+		else
+			prev[head] = slot;
+		head = slot;
+		size++;
+	}
+
+	// links slot before succ (which must be a slot of this list)
+	protected void linkBefore(int slot, int succ) {
+		if (succ == head) {
+			linkFirst(slot);
+			return;
+		}
+		next[slot] = succ;
+		prev[slot] = prev[succ];
+		next[prev[succ]] = slot;
+		prev[succ] = slot;
+		size++;
+	}
+
+	protected void unlink(int slot) {
+		if (slot == NIL || prev[slot] == slot)
+			throw new NoSuchElementException();
+		int p = prev[slot];
+		int n = next[slot];
+		if (p == NIL)
+			head = n;
+		else
+			next[p] = n;
+		if (n == NIL)
+			tail = p;
+		else
+			prev[n] = p;
+		// next is kept so that iterators pointing here can move on
+		prev[slot] = slot;
+		size--;
+		// there are never more free slots than slots
+		freeSlots[(firstFree + nFree) % freeSlots.length] = slot;
+		nFree++;
+	}
+
+	// inserts slot at position index
+	protected void linkAt(int index, int slot) {
+		if (index == size)
+			linkLast(slot);
+		else
+			linkBefore(slot, slotAt(index));
+	}
+
+	// removes the item at position index and returns its slot, whose value is
+	// still readable
+	protected int unlinkAt(int index) {
+		int slot = slotAt(index);
+		unlink(slot);
+		return slot;
+	}
+
+	protected int unlinkFirst() {
+		int slot = firstSlot();
+		unlink(slot);
+		return slot;
+	}
+
+	protected int unlinkLast() {
+		int slot = lastSlot();
+		unlink(slot);
+		return slot;
+	}
+
+	// Searching, descendants providing the test on slot values
+	//
+
+	protected int findSlot(IntPredicate holds) {
+		for (int slot = head; slot != NIL; slot = next[slot])
+			if (holds.test(slot))
+				return slot;
+		return NIL;
+	}
+
+	protected int indexOfSlot(IntPredicate holds) {
+		int index = 0;
+		for (int slot = head; slot != NIL; slot = next[slot], index++)
+			if (holds.test(slot))
+				return index;
+		return -1;
+	}
+
+	protected int lastIndexOfSlot(IntPredicate holds) {
+		int index = size - 1;
+		for (int slot = tail; slot != NIL; slot = prev[slot], index--)
+			if (holds.test(slot))
+				return index;
+		return -1;
+	}
+
+	protected boolean unlinkFirstMatch(IntPredicate holds) {
+		int slot = findSlot(holds);
+		if (slot == NIL)
+			return false;
+		unlink(slot);
+		return true;
+	}
+
+	/**
+	 * @param index a position in the list
+	 * @return the slot at this position
+	 */
+	protected int slotAt(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		int slot;
+		if (index < size / 2) {
+			slot = head;
+			for (int i = 0; i < index; i++)
+				slot = next[slot];
+		} else {
+			slot = tail;
+			for (int i = size - 1; i > index; i--)
+				slot = prev[slot];
+		}
+		return slot;
+	}
+
+	protected int firstSlot() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		return head;
+	}
+
+	protected int lastSlot() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		return tail;
+	}
+
+	/**
+	 * An iterator over slots which skips removed items (cf.
+	 * {@link DynamicList#iterator()} and {@link DynamicList#descendingIterator()}).
+	 */
+	protected abstract class SlotIterator {
+
+		private final boolean descending;
+		protected int current;
+		protected int lastReturned = NIL;
+		// stamps of current and lastReturned when they were reached, to detect
+		// their reuse
+		private int currentStamp;
+		private int lastReturnedStamp;
+		private final int iteratorGeneration = generation;
+
+		protected SlotIterator() {
+			this(false);
+		}
+
+		protected SlotIterator(boolean descending) {
+			this.descending = descending;
+			moveTo(descending ? tail : head);
+		}
+
+		private void moveTo(int slot) {
+			current = slot;
+			if (slot != NIL)
+				currentStamp = stamp[slot];
+		}
+
+		private void checkStamp(int slot, int slotStamp) {
+			if (slot != NIL && stamp[slot] != slotStamp)
+				throw new ConcurrentModificationException("Slot reused since the iterator reached it");
+		}
+
+		public boolean hasNext() {
+			if (iteratorGeneration != generation)
+				current = NIL;
+			else {
+				checkStamp(current, currentStamp);
+				// several consecutive slots may have been removed. They were removed after
+				// current, hence will be reused after it.
+				if (current != NIL && prev[current] == current) {
+					int slot = current;
+					while (slot != NIL && prev[slot] == slot)
+						slot = next[slot];
+					// backwards, resume before the first item following the removed ones
+					if (descending)
+						moveTo(slot == NIL ? tail : prev[slot]);
+					else
+						moveTo(slot);
+				}
+			}
+			return current != NIL;
+		}
+
+		protected int nextSlot() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			lastReturned = current;
+			lastReturnedStamp = currentStamp;
+			moveTo(descending ? prev[current] : next[current]);
+			return lastReturned;
+		}
+
+		public void remove() {
+			if (lastReturned == NIL || iteratorGeneration != generation)
+				throw new IllegalStateException();
+			checkStamp(lastReturned, lastReturnedStamp);
+			unlink(lastReturned);
+			lastReturned = NIL;
+		}
+
+	}
+
+	/**
+	 * A sequential spliterator over slots, walking the links like
+	 * {@link SlotIterator}.
+	 */
+	protected abstract class SlotSpliterator extends SlotIterator {
+
+		public long estimateSize() {
+			return size;
+		}
+
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+	}
+
+	// List-like methods
+	//
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return {@code true} if this list contains no elements.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all of the elements from this list. Iterators running on this list
+	 * stop.
+	 */
+	public void clear() {
+		head = NIL;
+		tail = NIL;
+		size = 0;
+		used = 0;
+		firstFree = 0;
+		nFree = 0;
+		generation++;
+	}
+
+	// Object
+	//
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("{");
+		for (int slot = head; slot != NIL; slot = next[slot]) {
+			appendValue(result, slot);
+			if (slot != tail)
+				result.append(", ");
+		}
+		result.append('}');
+		return result.toString();
+	}
+
+	// Textable
+	//
+	@Override
+	public String toUniqueString() {
+		return super.toString();
+	}
+
+	@Override
+	public String toShortString() {
+		return "[" + getClass().getSimpleName() + " of " + size() + " element(s)]";
+	}
+
+}
@@ -31,9 +31,15 @@
  **************************************************************************/
 package au.edu.anu.omhtk.collections;
 
+import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import fr.cnrs.iees.omhtk.Sizeable;
 import fr.cnrs.iees.omhtk.Textable;
@@ -49,9 +55,18 @@ import fr.cnrs.iees.omhtk.Textable;
  * one - so use with care!
  * </p>
  * <p>
- * Inherited methods {@link java.util.Collection#toArray() toArray()} and
- * {@link java.util.Collection#containsAll containsAll(...)} are not supported
- * and will throw an {@link UnsupportedOperationException}.
+ * By default, {@link #size()} is computed when lists are added to this one and
+ * is not updated when the contained lists change size afterwards (use
+ * {@link #refreshSize()} for this). In <em>live</em> mode (cf.
+ * {@link #QuickListOfLists(boolean, Collection...)}), {@link #size()} always
+ * reflects the current size of the contained lists, at a cost proportional to
+ * their number (not to the number of items).
+ * </p>
+ * <p>
+ * Items can be accessed by rank with {@link #get(int)}, which uses an index of
+ * the contained list sizes to find the proper contained list in logarithmic
+ * time. Access is then direct if this contained list is a {@link RandomAccess}
+ * {@link List}, sequential otherwise.
  * </p>
  *
  * @param <T> the list content type
@@ -62,6 +77,11 @@ public class QuickListOfLists<T> implements Collection<T>, Textable, Sizeable {
 
 	private LinkedList<Collection<T>> lists = new LinkedList<Collection<T>>();
 	private int size = 0;
+	private final boolean live;
+	// index for get(int): starts[i] is the rank of the first item of subLists[i]
+	// null when it needs rebuilding
+	private Collection<T>[] subLists = null;
+	private int[] starts = null;
 
 	/**
 	 * Construct a QuickListOfLists from a collection.
@@ -70,7 +90,20 @@ public class QuickListOfLists<T> implements Collection<T>, Textable, Sizeable {
 	 */
 	@SafeVarargs
 	public QuickListOfLists(Collection<T>... list) {
+		this(false, list);
+	}
+
+	/**
+	 * Construct a QuickListOfLists from a collection, optionally in live mode.
+	 * 
+	 * @param live {@code true} to have {@link #size()} always reflect the current
+	 *             size of the contained lists
+	 * @param list The list from which to build this list.
+	 */
+	@SafeVarargs
+	public QuickListOfLists(boolean live, Collection<T>... list) {
 		super();
+		this.live = live;
 		for (int i = 0; i < list.length; i++) {
 			lists.add(list[i]);
 			size += list[i].size();
@@ -90,11 +123,91 @@ public class QuickListOfLists<T> implements Collection<T>, Textable, Sizeable {
 	public void addList(Collection<T> list) {
 		lists.add(list);
 		size += list.size();
+		starts = null;
 	}
 
 	@Override
 	public void clear() {
 		lists.clear();
+		size = 0;
+		subLists = null;
+		starts = null;
+	}
+
+	/**
+	 * Recomputes the size of this list from the current size of the contained
+	 * lists. Useless in live mode.
+	 */
+	public void refreshSize() {
+		// the index of get(int) is updated in place rather than rebuilt
+		if (starts != null) {
+			refreshStarts();
+			size = starts[subLists.length];
+		} else {
+			size = 0;
+			for (Collection<T> coll : lists)
+				size += coll.size();
+		}
+	}
+
+	// for tests: the current index of get(int)
+	int[] index() {
+		return starts;
+	}
+
+	/**
+	 * @return {@code true} if this list is in live mode
+	 */
+	public boolean isLive() {
+		return live;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void buildIndex() {
+		subLists = (Collection<T>[]) lists.toArray(new Collection<?>[lists.size()]);
+		starts = new int[subLists.length + 1];
+		refreshStarts();
+	}
+
+	// the contained lists are unchanged, but maybe not their sizes
+	private void refreshStarts() {
+		for (int i = 0; i < subLists.length; i++)
+			starts[i + 1] = starts[i] + subLists[i].size();
+	}
+
+	/**
+	 * Returns the item at the specified rank in this list, as returned by its
+	 * iterator.
+	 * 
+	 * @param index the rank of the item
+	 * @return the item at this rank
+	 * @throws IndexOutOfBoundsException if index is out of range
+	 */
+	public T get(int index) {
+		// in live mode, sizes may have changed since the last call
+		if (starts == null)
+			buildIndex();
+		else if (live)
+			refreshStarts();
+		if (index < 0 || index >= starts[subLists.length])
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + starts[subLists.length]);
+		// find the last list starting at or before index (necessarily not empty)
+		int lo = 0, hi = subLists.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (starts[mid] <= index)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		Collection<T> coll = subLists[lo];
+		int local = index - starts[lo];
+		if ((coll instanceof List) && (coll instanceof RandomAccess))
+			return ((List<T>) coll).get(local);
+		Iterator<T> it = coll.iterator();
+		for (int i = 0; i < local; i++)
+			it.next();
+		return it.next();
 	}
 
 	// All this copied from Shayne's AggregatedIterator
@@ -143,16 +256,118 @@ public class QuickListOfLists<T> implements Collection<T>, Textable, Sizeable {
 
 		@Override
 		public U next() {
+			// hasNext() moves on to the next non-empty collection
+			if (!hasNext())
+				throw new NoSuchElementException();
 			return (U) iterator.next();
 		}
 
 		@Override
 		public void remove() {
 			iterator.remove();
+			size--;
+			starts = null;
 		}
 
 	}
 
+	/**
+	 * A spliterator which splits at the boundaries between the contained
+	 * collections, and then delegates splitting to the spliterator of the last
+	 * remaining collection.
+	 */
+	private class AggregatedSpliterator implements Spliterator<T> {
+
+		private final Collection<T>[] colls;
+		private int lo;
+		private final int hi;
+		// the spliterator on colls[lo], null if not yet started
+		private Spliterator<T> current;
+		private final int characteristics;
+
+		AggregatedSpliterator(Collection<T>[] colls, int lo, int hi, Spliterator<T> current, int characteristics) {
+			this.colls = colls;
+			this.lo = lo;
+			this.hi = hi;
+			this.current = current;
+			this.characteristics = characteristics;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			while (lo < hi) {
+				if (current == null)
+					current = colls[lo].spliterator();
+				if (current.tryAdvance(action))
+					return true;
+				current = null;
+				lo++;
+			}
+			return false;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			for (; lo < hi; lo++) {
+				if (current == null)
+					current = colls[lo].spliterator();
+				current.forEachRemaining(action);
+				current = null;
+			}
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				Spliterator<T> prefix = new AggregatedSpliterator(colls, lo, mid, current, characteristics);
+				lo = mid;
+				current = null;
+				return prefix;
+			} else if (hi - lo == 1) {
+				if (current == null)
+					current = colls[lo].spliterator();
+				return current.trySplit();
+			}
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			long result = 0;
+			for (int i = lo; i < hi; i++)
+				if (i == lo && current != null)
+					result += current.estimateSize();
+				else
+					result += colls[i].size();
+			return result;
+		}
+
+		@Override
+		public int characteristics() {
+			if (hi - lo == 1 && current != null)
+				return current.characteristics();
+			return characteristics;
+		}
+
+	}
+
+	/**
+	 * Returns a spliterator over all the items of this list. For parallel streams,
+	 * work is split by contained collection first, then within the contained
+	 * collections using their own spliterators. It is {@link Spliterator#ORDERED
+	 * ORDERED} (in the order of the iterator) and {@link Spliterator#SIZED SIZED}
+	 * until split down to a single contained collection, whose spliterator's
+	 * characteristics then apply.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public Spliterator<T> spliterator() {
+		Collection<T>[] colls = (Collection<T>[]) lists.toArray(new Collection<?>[lists.size()]);
+		return new AggregatedSpliterator(colls, 0, colls.length, null,
+			Spliterator.ORDERED | Spliterator.SIZED);
+	}
+
 	// Object
 	//
 	@Override
@@ -179,12 +394,14 @@ public class QuickListOfLists<T> implements Collection<T>, Textable, Sizeable {
 
 	@Override
 	public int size() {
+		if (live)
+			refreshSize();
 		return size;
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return size == 0;
+		return size() == 0;
 	}
 
 	@Override
@@ -195,15 +412,49 @@ public class QuickListOfLists<T> implements Collection<T>, Textable, Sizeable {
 		return false;
 	}
 
+	// copies of the contents of all contained lists
+	private Object[][] contents() {
+		Object[][] result = new Object[lists.size()][];
+		int i = 0;
+		for (Collection<T> coll : lists)
+			result[i++] = coll.toArray();
+		return result;
+	}
+
+	private static int fill(Object[][] contents, Object[] dest) {
+		int n = 0;
+		for (Object[] a : contents) {
+			System.arraycopy(a, 0, dest, n, a.length);
+			n += a.length;
+		}
+		return n;
+	}
+
+	private static int length(Object[][] contents) {
+		int n = 0;
+		for (Object[] a : contents)
+			n += a.length;
+		return n;
+	}
+
 	@Override
 	public Object[] toArray() {
-		throw new UnsupportedOperationException();
+		Object[][] contents = contents();
+		Object[] result = new Object[length(contents)];
+		fill(contents, result);
+		return result;
 	}
 
-	@SuppressWarnings("hiding")
+	@SuppressWarnings("unchecked")
 	@Override
-	public <T> T[] toArray(T[] a) {
-		throw new UnsupportedOperationException();
+	public <U> U[] toArray(U[] a) {
+		Object[][] contents = contents();
+		int n = length(contents);
+		U[] result = a.length >= n ? a : (U[]) Array.newInstance(a.getClass().getComponentType(), n);
+		fill(contents, result);
+		if (result.length > n)
+			result[n] = null;
+		return result;
 	}
 
 	@Override
@@ -218,7 +469,10 @@ public class QuickListOfLists<T> implements Collection<T>, Textable, Sizeable {
 
 	@Override
 	public boolean containsAll(Collection<?> c) {
-		throw new UnsupportedOperationException();
+		for (Object o : c)
+			if (!contains(o))
+				return false;
+		return true;
 	}
 
 	@Override
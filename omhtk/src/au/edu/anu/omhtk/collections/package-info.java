@@ -5,6 +5,8 @@
  * <li>Iterators resistant to a modification of the list while looping on it (avoiding the dreadful
  * {@link java.util.ConcurrentModificationException ConcurrentModificationException}).</li>
  * <li>Iterator on a set of Lists (shallow merging, i.e. without copy of any list items).</li>
+ * <li>Variants of the above lists for primitive {@code int}, {@code long} and {@code double} values
+ * (avoiding the memory cost of boxing).</li>
  * </ul>
  * 
  * @author Jacques Gignoux - 18 mai 2021
@@ -0,0 +1,636 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * Ancestor of the generators of this package, implementing the
+ * {@link SplittableGenerator} interface on top of a single-threaded
+ * {@link Random} descendant.
+ * </p>
+ * <p>
+ * This class still extends {@link Random} so that its descendants can be used
+ * anywhere a {@link Random} is expected. But, unlike {@link Random}, none of its
+ * methods is synchronized, and the streams returned by the {@code ints()},
+ * {@code longs()} and {@code doubles()} methods split the generator, rather
+ * than sharing it, when processed in parallel. As a consequence, a given
+ * instance must not be shared between threads: use {@link #split()} to give
+ * each thread its own generator.
+ * </p>
+ * <p>
+ * The {@code nextInts(...)}, {@code nextDoubles(...)} etc. methods fill arrays
+ * with the values that successive calls to the corresponding single value
+ * methods would return. Descendants are encouraged to override them with tight
+ * loops keeping the generator state in local variables.
+ * </p>
+ * <p>
+ * Descendants only have to implement {@link #split(SplittableGenerator)}.
+ * </p>
+ */
+public abstract class AbstractSplittableRandom extends Random implements SplittableGenerator {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String BAD_SIZE = "size must be non-negative";
+	private static final String BAD_RANGE = "bound must be greater than origin";
+
+	// for nextGaussian(), which produces values by pairs
+	private double nextNextGaussian;
+	private boolean haveNextNextGaussian = false;
+
+	protected AbstractSplittableRandom() {
+		super();
+	}
+
+	/**
+	 * Sets the seed of this generator. Descendants must call this method when
+	 * overriding it.
+	 */
+	@Override
+	public void setSeed(long seed) {
+		resetGaussian();
+	}
+
+	/**
+	 * Forgets the cached second value of the last pair of Gaussian values
+	 * generated by {@link #nextGaussian()}. Must be called whenever the state of
+	 * the generator is reset.
+	 */
+	protected void resetGaussian() {
+		haveNextNextGaussian = false;
+	}
+
+
+	/**
+	 * Same algorithm (Marsaglia's polar method) and results as
+	 * {@link Random#nextGaussian()}, but unsynchronized.
+	 */
+	@Override
+	public double nextGaussian() {
+		if (haveNextNextGaussian) {
+			haveNextNextGaussian = false;
+			return nextNextGaussian;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1; // between -1 and 1
+			v2 = 2 * nextDouble() - 1; // between -1 and 1
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		nextNextGaussian = v2 * multiplier;
+		haveNextNextGaussian = true;
+		return v1 * multiplier;
+	}
+
+	/**
+	 * Returns a uniformly distributed {@code double} value drawn with Campbell's
+	 * method (<a href=
+	 * "http://mumble.net/~campbell/2014/04/28/uniform-random-float">Uniform random
+	 * floats</a>, 2014): a real number is drawn uniformly in [0,1] and rounded to
+	 * the nearest {@code double}. Unlike {@link #nextDouble()}, which only returns
+	 * multiples of 2<sup>-53</sup>, every {@code double} in [0,1] can be returned,
+	 * with a probability proportional to the width of the real interval rounding
+	 * to it. As a consequence, 1.0 can be returned (with probability
+	 * 2<sup>-54</sup>). This method usually costs one {@link #nextLong()} call,
+	 * two with probability 1/2.
+	 * 
+	 * @return a uniformly distributed value in [0,1]
+	 */
+	public double nextDoubleFullPrecision() {
+		int exponent = -64;
+		long significand;
+		// leading zeros: the value is in a smaller binade
+		while ((significand = nextLong()) == 0L) {
+			exponent -= 64;
+			if (exponent < -1074)
+				return 0.0;
+		}
+		int shift = Long.numberOfLeadingZeros(significand);
+		if (shift != 0) {
+			exponent -= shift;
+			significand <<= shift;
+			significand |= nextLong() >>> (64 - shift);
+		}
+		// sticky bit, so that rounding is correct
+		significand |= 1L;
+		// unsigned conversion (halving keeps the sticky bit)
+		double d = (double) ((significand >>> 1) | 1L);
+		return Math.scalb(d, exponent + 1);
+	}
+
+	// bounded integers
+
+	/**
+	 * Lemire's nearly divisionless method (Lemire, 2019, <em>Fast random integer
+	 * generation in an interval</em>), for descendants to implement
+	 * {@link #nextInt(int)}: 32 random bits from {@link #nextInt()} are multiplied
+	 * by {@code bound} and the high half of the product is returned. Draws are
+	 * only rejected (with probability less than bound/2<sup>32</sup>) when the low
+	 * half falls in a biased zone, and computing this zone is the only division,
+	 * made only when needed. Powers of 2 never need a rejection test.
+	 * 
+	 * @param bound the upper bound (exclusive), positive
+	 * @return a uniformly distributed {@code int} value in [0..bound[
+	 */
+	protected final int boundedNextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		long m = (nextInt() & 0xFFFFFFFFL) * bound;
+		if ((bound & (bound - 1)) != 0) {
+			long l = m & 0xFFFFFFFFL;
+			if (l < bound) {
+				// 2^32 mod bound
+				long t = (0x100000000L - bound) % bound;
+				while (l < t) {
+					m = (nextInt() & 0xFFFFFFFFL) * bound;
+					l = m & 0xFFFFFFFFL;
+				}
+			}
+		}
+		return (int) (m >>> 32);
+	}
+
+	/**
+	 * Lemire's method, as {@link #boundedNextInt(int)}, on 64 bits from
+	 * {@link #nextLong()}, for descendants to implement {@link #nextLong(long)}.
+	 * 
+	 * @param bound the upper bound (exclusive), positive
+	 * @return a uniformly distributed {@code long} value in [0..bound[
+	 */
+	protected final long boundedNextLong(long bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		long x = nextLong();
+		if ((bound & (bound - 1)) == 0)
+			return bound == 1 ? 0L : x >>> Long.numberOfLeadingZeros(bound - 1);
+		long l = x * bound;
+		if (Long.compareUnsigned(l, bound) < 0) {
+			// 2^64 mod bound
+			long t = Long.remainderUnsigned(-bound, bound);
+			while (Long.compareUnsigned(l, t) < 0) {
+				x = nextLong();
+				l = x * bound;
+			}
+		}
+		return unsignedMultiplyHigh(x, bound);
+	}
+
+	// high half of the unsigned 128 bits product of x by a positive y
+	private static long unsignedMultiplyHigh(long x, long y) {
+		return Math.multiplyHigh(x, y) + ((x >> 63) & y);
+	}
+
+	// bulk generation
+
+	/**
+	 * Fills an array with values as returned by {@link #nextInt()}.
+	 * 
+	 * @param values the array to fill
+	 */
+	public void nextInts(int[] values) {
+		for (int i = 0; i < values.length; i++)
+			values[i] = nextInt();
+	}
+
+	/**
+	 * Fills an array with values as returned by {@link #nextInt(int)}.
+	 * 
+	 * @param values the array to fill
+	 * @param bound  the upper bound (exclusive) of the values
+	 */
+	public void nextInts(int[] values, int bound) {
+		for (int i = 0; i < values.length; i++)
+			values[i] = nextInt(bound);
+	}
+
+	/**
+	 * Fills an array with values as returned by {@link #nextLong()}.
+	 * 
+	 * @param values the array to fill
+	 */
+	public void nextLongs(long[] values) {
+		for (int i = 0; i < values.length; i++)
+			values[i] = nextLong();
+	}
+
+	/**
+	 * Fills an array with values as returned by {@link #nextFloat()}.
+	 * 
+	 * @param values the array to fill
+	 */
+	public void nextFloats(float[] values) {
+		for (int i = 0; i < values.length; i++)
+			values[i] = nextFloat();
+	}
+
+	/**
+	 * Fills an array with values as returned by {@link #nextDouble()}.
+	 * 
+	 * @param values the array to fill
+	 */
+	public void nextDoubles(double[] values) {
+		for (int i = 0; i < values.length; i++)
+			values[i] = nextDouble();
+	}
+
+	/**
+	 * Fills an array with values as returned by {@link #nextGaussian()}.
+	 * 
+	 * @param values the array to fill
+	 */
+	public void nextGaussians(double[] values) {
+		for (int i = 0; i < values.length; i++)
+			values[i] = nextGaussian();
+	}
+
+	/**
+	 * Fills an array with values as returned by {@link #nextExponential()}.
+	 * 
+	 * @param values the array to fill
+	 */
+	public void nextExponentials(double[] values) {
+		for (int i = 0; i < values.length; i++)
+			values[i] = nextExponential();
+	}
+
+	// SplittableGenerator
+
+	/**
+	 * Returns a new generator split off this one, i.e. seeded with values drawn
+	 * from this one.
+	 */
+	@Override
+	public AbstractSplittableRandom split() {
+		return split(this);
+	}
+
+	/**
+	 * Returns a new generator seeded with values drawn from {@code source}.
+	 */
+	@Override
+	public abstract AbstractSplittableRandom split(SplittableGenerator source);
+
+	@Override
+	public Stream<SplittableGenerator> splits(long streamSize) {
+		return splits(streamSize, this);
+	}
+
+	@Override
+	public Stream<SplittableGenerator> splits(SplittableGenerator source) {
+		return splits(Long.MAX_VALUE, source);
+	}
+
+	@Override
+	public Stream<SplittableGenerator> splits(long streamSize, SplittableGenerator source) {
+		checkSize(streamSize);
+		return StreamSupport.stream(new SplitsSpliterator(source, 0L, streamSize, this), false);
+	}
+
+	// streams
+
+	@Override
+	public IntStream ints(long streamSize) {
+		checkSize(streamSize);
+		return intStream(streamSize, Integer.MAX_VALUE, 0);
+	}
+
+	@Override
+	public IntStream ints() {
+		return intStream(Long.MAX_VALUE, Integer.MAX_VALUE, 0);
+	}
+
+	@Override
+	public IntStream ints(long streamSize, int randomNumberOrigin, int randomNumberBound) {
+		checkSize(streamSize);
+		checkRange(randomNumberOrigin < randomNumberBound);
+		return intStream(streamSize, randomNumberOrigin, randomNumberBound);
+	}
+
+	@Override
+	public IntStream ints(int randomNumberOrigin, int randomNumberBound) {
+		checkRange(randomNumberOrigin < randomNumberBound);
+		return intStream(Long.MAX_VALUE, randomNumberOrigin, randomNumberBound);
+	}
+
+	@Override
+	public LongStream longs(long streamSize) {
+		checkSize(streamSize);
+		return longStream(streamSize, Long.MAX_VALUE, 0L);
+	}
+
+	@Override
+	public LongStream longs() {
+		return longStream(Long.MAX_VALUE, Long.MAX_VALUE, 0L);
+	}
+
+	@Override
+	public LongStream longs(long streamSize, long randomNumberOrigin, long randomNumberBound) {
+		checkSize(streamSize);
+		checkRange(randomNumberOrigin < randomNumberBound);
+		return longStream(streamSize, randomNumberOrigin, randomNumberBound);
+	}
+
+	@Override
+	public LongStream longs(long randomNumberOrigin, long randomNumberBound) {
+		checkRange(randomNumberOrigin < randomNumberBound);
+		return longStream(Long.MAX_VALUE, randomNumberOrigin, randomNumberBound);
+	}
+
+	@Override
+	public DoubleStream doubles(long streamSize) {
+		checkSize(streamSize);
+		return doubleStream(streamSize, Double.MAX_VALUE, 0.0);
+	}
+
+	@Override
+	public DoubleStream doubles() {
+		return doubleStream(Long.MAX_VALUE, Double.MAX_VALUE, 0.0);
+	}
+
+	@Override
+	public DoubleStream doubles(long streamSize, double randomNumberOrigin, double randomNumberBound) {
+		checkSize(streamSize);
+		checkRange(randomNumberOrigin < randomNumberBound && randomNumberBound - randomNumberOrigin < Double.POSITIVE_INFINITY);
+		return doubleStream(streamSize, randomNumberOrigin, randomNumberBound);
+	}
+
+	@Override
+	public DoubleStream doubles(double randomNumberOrigin, double randomNumberBound) {
+		checkRange(randomNumberOrigin < randomNumberBound && randomNumberBound - randomNumberOrigin < Double.POSITIVE_INFINITY);
+		return doubleStream(Long.MAX_VALUE, randomNumberOrigin, randomNumberBound);
+	}
+
+	private static void checkSize(long streamSize) {
+		if (streamSize < 0L)
+			throw new IllegalArgumentException(BAD_SIZE);
+	}
+
+	private static void checkRange(boolean ok) {
+		if (!ok)
+			throw new IllegalArgumentException(BAD_RANGE);
+	}
+
+	private IntStream intStream(long size, int origin, int bound) {
+		return StreamSupport.intStream(new IntsSpliterator(this, 0L, size, origin, bound), false);
+	}
+
+	private LongStream longStream(long size, long origin, long bound) {
+		return StreamSupport.longStream(new LongsSpliterator(this, 0L, size, origin, bound), false);
+	}
+
+	private DoubleStream doubleStream(long size, double origin, double bound) {
+		return StreamSupport.doubleStream(new DoublesSpliterator(this, 0L, size, origin, bound), false);
+	}
+
+	// spliterators. They draw from their generator while traversing and split
+	// it when splitting. An origin >= bound means unbounded values.
+
+	private static final int CHARACTERISTICS = Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL
+		| Spliterator.IMMUTABLE;
+
+	private static final class IntsSpliterator implements Spliterator.OfInt {
+		private final SplittableGenerator rng;
+		private long index;
+		private final long fence;
+		private final int origin;
+		private final int bound;
+
+		IntsSpliterator(SplittableGenerator rng, long index, long fence, int origin, int bound) {
+			this.rng = rng;
+			this.index = index;
+			this.fence = fence;
+			this.origin = origin;
+			this.bound = bound;
+		}
+
+		@Override
+		public IntsSpliterator trySplit() {
+			long i = index, m = (i + fence) >>> 1;
+			if (m <= i)
+				return null;
+			index = m;
+			return new IntsSpliterator(rng.split(), i, m, origin, bound);
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return CHARACTERISTICS;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			if (index >= fence)
+				return false;
+			action.accept(origin < bound ? rng.nextInt(origin, bound) : rng.nextInt());
+			index++;
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			for (; index < fence; index++)
+				action.accept(origin < bound ? rng.nextInt(origin, bound) : rng.nextInt());
+		}
+	}
+
+	private static final class LongsSpliterator implements Spliterator.OfLong {
+		private final SplittableGenerator rng;
+		private long index;
+		private final long fence;
+		private final long origin;
+		private final long bound;
+
+		LongsSpliterator(SplittableGenerator rng, long index, long fence, long origin, long bound) {
+			this.rng = rng;
+			this.index = index;
+			this.fence = fence;
+			this.origin = origin;
+			this.bound = bound;
+		}
+
+		@Override
+		public LongsSpliterator trySplit() {
+			long i = index, m = (i + fence) >>> 1;
+			if (m <= i)
+				return null;
+			index = m;
+			return new LongsSpliterator(rng.split(), i, m, origin, bound);
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return CHARACTERISTICS;
+		}
+
+		@Override
+		public boolean tryAdvance(LongConsumer action) {
+			if (index >= fence)
+				return false;
+			action.accept(origin < bound ? rng.nextLong(origin, bound) : rng.nextLong());
+			index++;
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(LongConsumer action) {
+			for (; index < fence; index++)
+				action.accept(origin < bound ? rng.nextLong(origin, bound) : rng.nextLong());
+		}
+	}
+
+	private static final class DoublesSpliterator implements Spliterator.OfDouble {
+		private final SplittableGenerator rng;
+		private long index;
+		private final long fence;
+		private final double origin;
+		private final double bound;
+
+		DoublesSpliterator(SplittableGenerator rng, long index, long fence, double origin, double bound) {
+			this.rng = rng;
+			this.index = index;
+			this.fence = fence;
+			this.origin = origin;
+			this.bound = bound;
+		}
+
+		@Override
+		public DoublesSpliterator trySplit() {
+			long i = index, m = (i + fence) >>> 1;
+			if (m <= i)
+				return null;
+			index = m;
+			return new DoublesSpliterator(rng.split(), i, m, origin, bound);
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return CHARACTERISTICS;
+		}
+
+		@Override
+		public boolean tryAdvance(DoubleConsumer action) {
+			if (index >= fence)
+				return false;
+			action.accept(origin < bound ? rng.nextDouble(origin, bound) : rng.nextDouble());
+			index++;
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(DoubleConsumer action) {
+			for (; index < fence; index++)
+				action.accept(origin < bound ? rng.nextDouble(origin, bound) : rng.nextDouble());
+		}
+	}
+
+	// a spliterator of generators split off splitting with values drawn from
+	// source
+	private static final class SplitsSpliterator implements Spliterator<SplittableGenerator> {
+		private final SplittableGenerator source;
+		private long index;
+		private final long fence;
+		private final SplittableGenerator splitting;
+
+		SplitsSpliterator(SplittableGenerator source, long index, long fence, SplittableGenerator splitting) {
+			this.source = source;
+			this.index = index;
+			this.fence = fence;
+			this.splitting = splitting;
+		}
+
+		@Override
+		public SplitsSpliterator trySplit() {
+			long i = index, m = (i + fence) >>> 1;
+			if (m <= i)
+				return null;
+			index = m;
+			return new SplitsSpliterator(source.split(), i, m, splitting);
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return CHARACTERISTICS;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super SplittableGenerator> action) {
+			if (index >= fence)
+				return false;
+			action.accept(splitting.split(source));
+			index++;
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super SplittableGenerator> action) {
+			for (; index < fence; index++)
+				action.accept(splitting.split(source));
+		}
+	}
+
+}
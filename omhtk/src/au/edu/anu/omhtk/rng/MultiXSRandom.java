@@ -0,0 +1,207 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+/**
+ * <p>
+ * A multi-lane version of {@link XSRandom} for the bulk generation of large
+ * arrays of random numbers: a number of independent xorshift generators (the
+ * <em>lanes</em>) are advanced together, one round after the other. The inner
+ * loop over lanes only involves shifts and xors over a {@code long} array, so
+ * that the JIT compiler can translate it into SIMD instructions where the
+ * hardware supports them, and runs as plain scalar code elsewhere.
+ * </p>
+ * <p>
+ * The arrays are filled round by round: with {@code n} lanes, values
+ * {@code 0..n-1} come from the first round, values {@code n..2n-1} from the
+ * second, etc. If the array size is not a multiple of the number of lanes, only
+ * the first lanes are advanced in the last round. Every lane always produces
+ * exactly the same sequence as an {@link XSRandom} created with its current
+ * state (cf. {@link #getLaneSeed(int)}).
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class MultiXSRandom {
+
+	/**
+	 * Default number of lanes. SIMD registers only hold 4 to 8 {@code long}
+	 * values, but the JIT compiler needs long loops to vectorize and unroll them
+	 * profitably.
+	 */
+	public static final int DEFAULT_LANES = 256;
+
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	private final long[] lanes;
+	// work buffer for values made of two draws
+	private final long[] high;
+
+	/**
+	 * Creates a generator with {@link #DEFAULT_LANES} lanes, seeded from a single
+	 * seed.
+	 * 
+	 * @param seed the seed
+	 */
+	public MultiXSRandom(long seed) {
+		this(DEFAULT_LANES, seed);
+	}
+
+	/**
+	 * Creates a generator with {@code nLanes} lanes, seeded from a single seed.
+	 * Lane seeds are derived from this seed with the SplitMix64 algorithm.
+	 * 
+	 * @param nLanes the number of lanes
+	 * @param seed   the seed
+	 */
+	public MultiXSRandom(int nLanes, long seed) {
+		this(laneSeeds(nLanes, seed));
+	}
+
+	/**
+	 * Creates a generator with one lane per seed.
+	 * 
+	 * @param laneSeeds the seeds of the lanes, none of which can be 0
+	 */
+	public MultiXSRandom(long... laneSeeds) {
+		super();
+		if (laneSeeds.length == 0)
+			throw new IllegalArgumentException("at least one lane is needed");
+		for (long s : laneSeeds)
+			if (s == 0L)
+				throw new IllegalArgumentException("a xorshift generator cannot be seeded with 0");
+		lanes = laneSeeds.clone();
+		high = new long[lanes.length];
+	}
+
+	private static long[] laneSeeds(int nLanes, long seed) {
+		if (nLanes <= 0)
+			throw new IllegalArgumentException("at least one lane is needed");
+		long[] result = new long[nLanes];
+		long z = seed;
+		for (int i = 0; i < nLanes; i++) {
+			do {
+				// SplitMix64
+				z += 0x9e3779b97f4a7c15L;
+				long x = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+				x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+				result[i] = x ^ (x >>> 31);
+			} while (result[i] == 0L);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of lanes of this generator
+	 */
+	public int nLanes() {
+		return lanes.length;
+	}
+
+	/**
+	 * @param lane a lane index
+	 * @return the current state of this lane, usable as the seed of an
+	 *         {@link XSRandom} continuing its sequence
+	 */
+	public long getLaneSeed(int lane) {
+		return lanes[lane];
+	}
+
+	// one xorshift step of the first n lanes, as in XSRandom
+	private void round(int n) {
+		final long[] s = lanes;
+		for (int i = 0; i < n; i++) {
+			long x = s[i];
+			x ^= (x << 21);
+			x ^= (x >>> 35);
+			x ^= (x << 4);
+			s[i] = x;
+		}
+	}
+
+	/**
+	 * Fills an array with uniformly distributed {@code int} values, as
+	 * {@link XSRandom#nextInt()} on each lane.
+	 * 
+	 * @param values the array to fill
+	 */
+	public void nextInts(int[] values) {
+		final int nl = lanes.length;
+		for (int k = 0; k < values.length; k += nl) {
+			int n = Math.min(nl, values.length - k);
+			round(n);
+			for (int i = 0; i < n; i++)
+				values[k + i] = (int) lanes[i];
+		}
+	}
+
+	/**
+	 * Fills an array with uniformly distributed {@code long} values, as
+	 * {@link XSRandom#nextLong()} on each lane (two rounds per value).
+	 * 
+	 * @param values the array to fill
+	 */
+	public void nextLongs(long[] values) {
+		final int nl = lanes.length;
+		for (int k = 0; k < values.length; k += nl) {
+			int n = Math.min(nl, values.length - k);
+			round(n);
+			for (int i = 0; i < n; i++)
+				high[i] = (long) (int) lanes[i] << 32;
+			round(n);
+			for (int i = 0; i < n; i++)
+				values[k + i] = high[i] + (int) lanes[i];
+		}
+	}
+
+	/**
+	 * Fills an array with uniformly distributed {@code double} values between 0.0
+	 * (inclusive) and 1.0 (exclusive), as {@link XSRandom#nextDouble()} on each
+	 * lane (two rounds per value).
+	 * 
+	 * @param values the array to fill
+	 */
+	public void nextDoubles(double[] values) {
+		final int nl = lanes.length;
+		for (int k = 0; k < values.length; k += nl) {
+			int n = Math.min(nl, values.length - k);
+			round(n);
+			for (int i = 0; i < n; i++)
+				high[i] = (lanes[i] & ((1L << 26) - 1)) << 27;
+			round(n);
+			for (int i = 0; i < n; i++)
+				values[k + i] = (high[i] + (lanes[i] & ((1L << 27) - 1))) * DOUBLE_UNIT;
+		}
+	}
+
+}
@@ -31,8 +31,6 @@
  **************************************************************************/
 package au.edu.anu.omhtk.rng;
 
-import java.util.Random;
-
 /*
  * PCG Random Number Generation for Java
  *
@@ -57,6 +55,7 @@ import java.util.Random;
  */
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator.SplittableGenerator;
 
 /**
  * <p>
@@ -73,12 +72,18 @@ import java.util.concurrent.atomic.AtomicLong;
  * <a href="https://github.com/imneme/pcg-c-basic/">minimal C
  * implementation</a>.</li>
  * <li>Instances of Pcg32 are not thread-safe and so it doesn't obey the
- * {@link java.util.Random} contract.</li>
+ * {@link java.util.Random} contract. No method is synchronized, so that a
+ * generator confined to a single thread runs at full speed. Use
+ * {@link SynchronizedPcg32} for a generator shared between threads.</li>
+ * <li>Pcg32 is a {@link SplittableGenerator}: {@link #split()} returns a new
+ * generator on a different stream, and the streams returned by
+ * {@link #ints()}, {@link #doubles()} etc. split the generator when processed
+ * in parallel.</li>
  * </ul>
  * 
  * @author Ian Davies - Dec 6, 2018
  */
-public class Pcg32 extends Random {
+public class Pcg32 extends AbstractSplittableRandom {
 
 	private static final long serialVersionUID = 1L;
 	/**
@@ -94,22 +99,24 @@ public class Pcg32 extends Random {
 
 	private final static long MULTIPLIER = 6364136223846793005L;
 
-//	/**
-//	 * Creates a new random number generator using a {@code long} seed and a
-//	 * {@code long} stream number.
-//	 * <p>
-//	 * The invocation {@code new Pcg32(initState,initSeq)} is equivalent to:
-//	 * 
-//	 * <pre>
-//	 * Pcg32 rnd = new Pcg32();
-//	 * rnd.seed(initState, initSeq);
-//	 * </pre>
-//	 *
-//	 * @see #seed(long, long)
-//	 */
-//	public Pcg32(long initState, long initSeq) {
-//		seed(initState, initSeq);
-//	}
+	/**
+	 * Creates a new random number generator using a {@code long} seed and a
+	 * {@code long} stream number.
+	 * <p>
+	 * The invocation {@code new Pcg32(initState,initSeq)} is equivalent to:
+	 * 
+	 * <pre>
+	 * Pcg32 rnd = new Pcg32();
+	 * rnd.seed(initState, initSeq);
+	 * </pre>
+	 *
+	 * @param initState an initial state
+	 * @param initSeq   an initial stream
+	 * @see #seed(long, long)
+	 */
+	public Pcg32(long initState, long initSeq) {
+		seed(initState, initSeq);
+	}
 
 	/**
 	 * Creates a new random number generator using current time (returned by
@@ -129,7 +136,8 @@ public class Pcg32 extends Random {
 	 * 
 	 */
 	@Override
-	public synchronized void setSeed(long seed) {
+	public void setSeed(long seed) {
+		super.setSeed(seed);
 		this.state = seed;
 		this.inc = 1;
 		nextInt();
@@ -144,34 +152,32 @@ public class Pcg32 extends Random {
 	 *
 	 */
 	@Override
-	public synchronized int nextInt() {
+	public int nextInt() {
 		long oldState = state;
 
 		state = oldState * MULTIPLIER + inc;
+		return output(oldState);
+	}
+
+	// the PCG output function (XSH RR)
+	private static int output(long oldState) {
 		int xorShifted = (int) (((oldState >>> 18) ^ oldState) >>> 27);
 		int rot = (int) (oldState >>> 59);
 		return Integer.rotateRight(xorShifted, rot);
 	}
 
 	/**
-	 * @return the next pseudo-random, approximately uniformly distributed
-	 *         {@code int} value between 0 (inclusive) and {@code n} (exclusive).
+	 * Uses Lemire's nearly divisionless method (cf.
+	 * {@link AbstractSplittableRandom#boundedNextInt(int)}).
+	 * 
+	 * @return the next pseudo-random, uniformly distributed {@code int} value
+	 *         between 0 (inclusive) and {@code bound} (exclusive).
 	 *
 	 * @param bound The upper bound (exclusive) the distribution.
 	 */
 	@Override
 	public int nextInt(int bound) {
-		if (bound <= 0) {
-			throw new IllegalArgumentException("bound must be positive");
-		}
-		// the special treatment of powers of 2 as in Random.nextInt(int) shouldn't be
-		// necessary
-		int bits, val;
-		do {
-			bits = nextInt() >>> 1;
-			val = bits % bound;
-		} while (bits - val + (bound - 1) < 0);
-		return val;
+		return boundedNextInt(bound);
 	}
 
 	/**
@@ -189,22 +195,16 @@ public class Pcg32 extends Random {
 	}
 
 	/**
-	 * @return the next pseudo-random, approximately uniformly distributed
-	 *         {@code long} value between 0 (inclusive) and {@code n} (exclusive).
+	 * Uses Lemire's nearly divisionless method, as {@link #nextInt(int)}, on 64
+	 * bits (cf. {@link AbstractSplittableRandom#boundedNextLong(long)}).
+	 * 
+	 * @return the next pseudo-random, uniformly distributed {@code long} value
+	 *         between 0 (inclusive) and {@code bound} (exclusive).
 	 * @param bound The (exclusive) upper bound.
 	 */
-
-	public synchronized long nextLong(long bound) {
-		if (bound <= 0) {
-			throw new IllegalArgumentException("n must be positive");
-		}
-
-		long bits, val;
-		do {
-			bits = nextLong() >>> 1;
-			val = bits % bound;
-		} while (bits - val + (bound - 1) < 0);
-		return val;
+	@Override
+	public long nextLong(long bound) {
+		return boundedNextLong(bound);
 	}
 
 	/**
@@ -224,7 +224,6 @@ public class Pcg32 extends Random {
 	 */
 	@Override
 	public float nextFloat() {
-		// TODO see http://mumble.net/~campbell/2014/04/28/uniform-random-float
 		return nextBits(24) / ((float) (1 << 24));
 	}
 
@@ -238,13 +237,15 @@ public class Pcg32 extends Random {
 	}
 
 	/**
+	 * This method uses two successive draws. {@link Pcg64} only needs one. For
+	 * values with full precision near 0, use {@link #nextDoubleFullPrecision()}.
+	 * 
 	 * @return the next pseudo-random, approximately uniformly distributed
 	 *         {@code double} value between 0.0 (inclusive) and 1.0 (exclusive).
 	 *
 	 */
 	@Override
 	public double nextDouble() {
-		// TODO see http://mumble.net/~campbell/2014/04/28/uniform-random-float
 		return (((long) (nextBits(26)) << 27) + nextBits(27)) / (double) (1L << 53);
 	}
 
@@ -262,37 +263,102 @@ public class Pcg32 extends Random {
 		return nextInt() >>> (32 - bits);
 	}
 
-//	private double nextNextGaussian;
-//	/**
-//	 * Flag to determine if a nextGaussian number has already been set.
-//	 */
-//	private boolean haveNextNextGaussian = false;
-
-//	/**
-//	 * @return the next pseudo-random, Gaussian ("normally") distributed
-//	 *         {@code double} value with mean {@code 0.0} and standard deviation
-//	 *         {@code 1.0} from this random number generator's sequence.
-//	 *
-//	 */
-//	@Override
-//	public double nextGaussian() {
-//		// See Knuth, ACP, Section 3.4.1 Algorithm C.
-//		if (haveNextNextGaussian) {
-//			haveNextNextGaussian = false;
-//			return nextNextGaussian;
-//		} else {
-//			double v1, v2, s;
-//			do {
-//				v1 = 2 * nextDouble() - 1; // between -1 and 1
-//				v2 = 2 * nextDouble() - 1; // between -1 and 1
-//				s = v1 * v1 + v2 * v2;
-//			} while (s >= 1 || s == 0);
-//			double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
-//			nextNextGaussian = v2 * multiplier;
-//			haveNextNextGaussian = true;
-//			return v1 * multiplier;
-//		}
-//	}
+	// bulk generation: same results as the single value methods, but with the
+	// generator state kept in local variables
+
+	@Override
+	public void nextInts(int[] values) {
+		long s = state;
+		final long inc = this.inc;
+		for (int i = 0; i < values.length; i++) {
+			values[i] = output(s);
+			s = s * MULTIPLIER + inc;
+		}
+		state = s;
+	}
+
+	@Override
+	public void nextInts(int[] values, int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		long s = state;
+		final long inc = this.inc;
+		final boolean powerOf2 = (bound & (bound - 1)) == 0;
+		// 2^32 mod bound
+		final long t = (0x100000000L - bound) % bound;
+		for (int i = 0; i < values.length; i++) {
+			long m = (output(s) & 0xFFFFFFFFL) * bound;
+			s = s * MULTIPLIER + inc;
+			if (!powerOf2)
+				while ((m & 0xFFFFFFFFL) < t) {
+					m = (output(s) & 0xFFFFFFFFL) * bound;
+					s = s * MULTIPLIER + inc;
+				}
+			values[i] = (int) (m >>> 32);
+		}
+		state = s;
+	}
+
+	@Override
+	public void nextLongs(long[] values) {
+		long s = state;
+		final long inc = this.inc;
+		for (int i = 0; i < values.length; i++) {
+			long hi = output(s);
+			s = s * MULTIPLIER + inc;
+			long lo = output(s);
+			s = s * MULTIPLIER + inc;
+			values[i] = (hi << 32) + lo;
+		}
+		state = s;
+	}
+
+	@Override
+	public void nextFloats(float[] values) {
+		long s = state;
+		final long inc = this.inc;
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (output(s) >>> 8) / ((float) (1 << 24));
+			s = s * MULTIPLIER + inc;
+		}
+		state = s;
+	}
+
+	@Override
+	public void nextDoubles(double[] values) {
+		long s = state;
+		final long inc = this.inc;
+		for (int i = 0; i < values.length; i++) {
+			long hi = output(s) >>> 6;
+			s = s * MULTIPLIER + inc;
+			long lo = output(s) >>> 5;
+			s = s * MULTIPLIER + inc;
+			values[i] = ((hi << 27) + lo) / (double) (1L << 53);
+		}
+		state = s;
+	}
+
+	/**
+	 * @return the next pseudo-random, Gaussian ("normally") distributed
+	 *         {@code double} value with mean {@code 0.0} and standard deviation
+	 *         {@code 1.0}, computed with the ziggurat method (cf.
+	 *         {@link Ziggurat}).
+	 */
+	@Override
+	public double nextGaussian() {
+		return Ziggurat.nextGaussian(this);
+	}
+
+	/**
+	 * @return the next pseudo-random, exponentially distributed {@code double}
+	 *         value with mean {@code 1.0}, computed with the ziggurat method (cf.
+	 *         {@link Ziggurat}).
+	 */
+	@Override
+	public double nextExponential() {
+		return Ziggurat.nextExponential(this);
+	}
 
 	/**
 	 * @return the next pseudo-random, Gaussian ("normally") distributed
@@ -316,6 +382,7 @@ public class Pcg32 extends Random {
 	 * @param initSeq   an initial stream
 	 */
 	public void seed(long initState, long initSeq) {
+		resetGaussian();
 		state = 0;
 		inc = 2 * initSeq + 1;
 		nextInt();
@@ -333,6 +400,60 @@ public class Pcg32 extends Random {
 		seed(System.nanoTime(), streamUniquifier());
 	}
 
+	/**
+	 * Moves the generator {@code delta} steps forward in its sequence, as if
+	 * {@link #nextInt()} had been called {@code delta} times, in O(log(delta))
+	 * time (Brown, 1994, <em>Random number generation with arbitrary
+	 * strides</em>). {@code delta} is taken as an unsigned number: since the
+	 * sequence has a period of 2<sup>64</sup>, a negative {@code delta} moves the
+	 * generator backwards, e.g. {@code advance(-1)} undoes the last draw.
+	 * 
+	 * @param delta the number of steps to skip
+	 */
+	public void advance(long delta) {
+		long curMult = MULTIPLIER;
+		long curPlus = inc;
+		long accMult = 1L;
+		long accPlus = 0L;
+		while (delta != 0) {
+			if ((delta & 1L) != 0) {
+				accMult *= curMult;
+				accPlus = accPlus * curMult + curPlus;
+			}
+			curPlus = (curMult + 1) * curPlus;
+			curMult *= curMult;
+			delta >>>= 1;
+		}
+		state = accMult * state + accPlus;
+	}
+
+	/**
+	 * Returns a new generator split off this one. Its state and stream number are
+	 * drawn from this generator, so that a set of generators split off a master
+	 * generator seeded with a known seed is reproducible. Since the new generator
+	 * uses a different stream, its sequence is statistically independent from
+	 * the sequence of this one, even if they happen to start from close states.
+	 * 
+	 * @return a new generator
+	 */
+	@Override
+	public Pcg32 split() {
+		return split(this);
+	}
+
+	/**
+	 * Returns a new generator whose state and stream number are drawn from
+	 * {@code source}.
+	 * 
+	 * @param source the generator providing the seeds
+	 * @return a new generator
+	 */
+	@Override
+	public Pcg32 split(SplittableGenerator source) {
+		long initState = source.nextLong();
+		return new Pcg32(initState, source.nextLong());
+	}
+
 	private static long streamUniquifier() {
 		for (;;) {
 			long current = streamUniquifier.get();
@@ -0,0 +1,275 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * <p>
+ * A <em>permuted congruential generator</em> (PCG) with 128 bits of state and
+ * 64 bits of output, using the DXSM output function ("double xorshift
+ * multiply") and a 64-bit "cheap" multiplier for the underlying linear
+ * congruential generator. This is the PCG64DXSM generator of NumPy (O'Neill,
+ * 2021, <a href="https://github.com/numpy/numpy/issues/16313">discussion</a>).
+ * </p>
+ * <p>
+ * Compared to {@link Pcg32}, every {@code long} and {@code double} value costs a
+ * single generator step instead of two, and the period is 2<sup>128</sup>.
+ * Doubles use the 53 high bits of the output.
+ * </p>
+ * <p>
+ * Instances of Pcg64 are not thread-safe: use {@link #split()} to give each
+ * thread its own generator.
+ * </p>
+ */
+public class Pcg64 extends AbstractSplittableRandom {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long CHEAP_MULTIPLIER = 0xda942042e4dd58b5L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+	// 128-bit state and increment (odd), as high and low 64-bit words
+	private long stateHi;
+	private long stateLo;
+	private long incHi;
+	private long incLo;
+
+	/**
+	 * Creates a new random number generator using current time (returned by
+	 * {@link System#nanoTime()}) as the seed and a unique stream number.
+	 */
+	public Pcg64() {
+		seed(System.nanoTime(), streamUniquifier());
+	}
+
+	/**
+	 * Creates a new random number generator using a {@code long} seed and a
+	 * {@code long} stream number.
+	 * 
+	 * @param initState an initial state
+	 * @param initSeq   an initial stream
+	 * @see #seed(long, long)
+	 */
+	public Pcg64(long initState, long initSeq) {
+		seed(initState, initSeq);
+	}
+
+	/**
+	 * Initializes the generator with a {@code long} as the state and a {@code long}
+	 * stream number. The latter must be unique to ensure that multiple generators
+	 * with the same seed will have different sequences.
+	 * 
+	 * @param initState an initial state
+	 * @param initSeq   an initial stream
+	 */
+	public void seed(long initState, long initSeq) {
+		resetGaussian();
+		incHi = initSeq >>> 63;
+		incLo = (initSeq << 1) | 1L;
+		stateHi = 0L;
+		stateLo = 0L;
+		step();
+		long lo = stateLo + initState;
+		if (Long.compareUnsigned(lo, stateLo) < 0)
+			stateHi++;
+		stateLo = lo;
+		step();
+	}
+
+	/**
+	 * Sets the seed of this random number generator, using stream number 0.
+	 * 
+	 * @param seed the seed.
+	 */
+	@Override
+	public void setSeed(long seed) {
+		super.setSeed(seed);
+		seed(seed, 0L);
+	}
+
+	// state = state * CHEAP_MULTIPLIER + inc, on 128 bits
+	private void step() {
+		long lo = stateLo;
+		long pLo = lo * CHEAP_MULTIPLIER;
+		// high word of the unsigned product (CHEAP_MULTIPLIER has its sign bit set)
+		long pHi = stateHi * CHEAP_MULTIPLIER + Math.multiplyHigh(lo, CHEAP_MULTIPLIER)
+			+ ((lo >> 63) & CHEAP_MULTIPLIER) + lo;
+		stateLo = pLo + incLo;
+		stateHi = pHi + incHi + (Long.compareUnsigned(stateLo, pLo) < 0 ? 1L : 0L);
+	}
+
+	// the DXSM output function
+	private static long output(long hi, long lo) {
+		lo |= 1L;
+		hi ^= hi >>> 32;
+		hi *= CHEAP_MULTIPLIER;
+		hi ^= hi >>> 48;
+		hi *= lo;
+		return hi;
+	}
+
+	/**
+	 * @return the next pseudo-random, uniformly distributed {@code long} value,
+	 *         computed from the current state before the generator steps.
+	 */
+	@Override
+	public long nextLong() {
+		long result = output(stateHi, stateLo);
+		step();
+		return result;
+	}
+
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return nextLong() < 0L;
+	}
+
+	@Override
+	public float nextFloat() {
+		return (nextLong() >>> 40) * FLOAT_UNIT;
+	}
+
+	/**
+	 * @return the next pseudo-random, uniformly distributed {@code double} value
+	 *         between 0.0 (inclusive) and 1.0 (exclusive), from the 53 high bits of
+	 *         a single draw.
+	 */
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * Uses Lemire's nearly divisionless method (cf.
+	 * {@link AbstractSplittableRandom#boundedNextInt(int)}).
+	 */
+	@Override
+	public int nextInt(int bound) {
+		return boundedNextInt(bound);
+	}
+
+	/**
+	 * Uses Lemire's nearly divisionless method (cf.
+	 * {@link AbstractSplittableRandom#boundedNextLong(long)}).
+	 */
+	@Override
+	public long nextLong(long bound) {
+		return boundedNextLong(bound);
+	}
+
+	@Override
+	public double nextGaussian() {
+		return Ziggurat.nextGaussian(this);
+	}
+
+	@Override
+	public double nextExponential() {
+		return Ziggurat.nextExponential(this);
+	}
+
+	// bulk generation, with the state in local variables
+
+	@Override
+	public void nextLongs(long[] values) {
+		long hi = stateHi, lo = stateLo;
+		final long iHi = incHi, iLo = incLo;
+		for (int i = 0; i < values.length; i++) {
+			values[i] = output(hi, lo);
+			long pLo = lo * CHEAP_MULTIPLIER;
+			long pHi = hi * CHEAP_MULTIPLIER + Math.multiplyHigh(lo, CHEAP_MULTIPLIER)
+				+ ((lo >> 63) & CHEAP_MULTIPLIER) + lo;
+			lo = pLo + iLo;
+			hi = pHi + iHi + (Long.compareUnsigned(lo, pLo) < 0 ? 1L : 0L);
+		}
+		stateHi = hi;
+		stateLo = lo;
+	}
+
+	@Override
+	public void nextDoubles(double[] values) {
+		long hi = stateHi, lo = stateLo;
+		final long iHi = incHi, iLo = incLo;
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (output(hi, lo) >>> 11) * DOUBLE_UNIT;
+			long pLo = lo * CHEAP_MULTIPLIER;
+			long pHi = hi * CHEAP_MULTIPLIER + Math.multiplyHigh(lo, CHEAP_MULTIPLIER)
+				+ ((lo >> 63) & CHEAP_MULTIPLIER) + lo;
+			lo = pLo + iLo;
+			hi = pHi + iHi + (Long.compareUnsigned(lo, pLo) < 0 ? 1L : 0L);
+		}
+		stateHi = hi;
+		stateLo = lo;
+	}
+
+	@Override
+	public Pcg64 split() {
+		return split(this);
+	}
+
+	/**
+	 * Returns a new generator whose state and stream number are drawn from
+	 * {@code source}.
+	 * 
+	 * @param source the generator providing the seeds
+	 * @return a new generator
+	 */
+	@Override
+	public Pcg64 split(SplittableGenerator source) {
+		long initState = source.nextLong();
+		return new Pcg64(initState, source.nextLong());
+	}
+
+	private static long streamUniquifier() {
+		for (;;) {
+			long current = streamUniquifier.get();
+			long next = current * 181783497276652981L;
+			if (streamUniquifier.compareAndSet(current, next))
+				return next;
+		}
+	}
+
+	private static final AtomicLong streamUniquifier = new AtomicLong(System.identityHashCode(Pcg64.class));
+
+}
@@ -0,0 +1,140 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A source of {@link Pcg32} generators for parallel computations, all derived
+ * from one of the seeds of {@link RandomSeeds}, so that runs are reproducible
+ * and no generator is ever shared between threads.
+ * </p>
+ * <ul>
+ * <li>{@link #forTask(long)} returns a new generator for a task identified by a
+ * number in [0..{@link #MAX_TASKS}[. Two calls with the same task number, from
+ * any thread and in any order, return generators with the same sequence. This
+ * is the way to get results independent of scheduling: number the tasks (e.g.
+ * replicates, spatial cells, individuals) and draw from their own
+ * generator.</li>
+ * <li>{@link #forThread()} returns a generator owned by the calling thread.
+ * Threads get a stream number when they first call this method, so results are
+ * only reproducible if the work done by each thread, and the order in which
+ * threads first call it, are themselves reproducible.</li>
+ * </ul>
+ * <p>
+ * Every generator uses the same registry seed but its own PCG stream, and its
+ * initial state is further scrambled with its stream number, so that
+ * generators of neighbouring tasks are not correlated. PCG streams are 63-bit
+ * numbers: tasks use the lower half of them and threads the upper half, so that
+ * no two generators share a stream.
+ * </p>
+ */
+public class RngRegistry {
+
+	/** The number of distinct task numbers, 2<sup>62</sup> */
+	public static final long MAX_TASKS = 1L << 62;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final int seedIndex;
+	private final long seed;
+	// thread streams are numbered MAX_TASKS, MAX_TASKS+1, ... so that they never
+	// match task streams (Pcg32 ignores the top bit of stream numbers)
+	private final AtomicLong threadStreams = new AtomicLong(MAX_TASKS);
+	private final ThreadLocal<Pcg32> threadGenerators = ThreadLocal
+		.withInitial(() -> generator(threadStreams.getAndIncrement()));
+
+	/**
+	 * Creates a registry for generators derived from a seed of
+	 * {@link RandomSeeds}.
+	 * 
+	 * @param seedIndex the index of the seed in {@link RandomSeeds}
+	 * @throws IndexOutOfBoundsException if there is no seed with this index
+	 */
+	public RngRegistry(int seedIndex) {
+		super();
+		this.seedIndex = seedIndex;
+		this.seed = RandomSeeds.getSeed(seedIndex);
+	}
+
+	/**
+	 * @return the index of the seed of this registry in {@link RandomSeeds}
+	 */
+	public int seedIndex() {
+		return seedIndex;
+	}
+
+	/**
+	 * Returns a new generator for a task. The generator must not be shared with
+	 * other threads.
+	 * 
+	 * @param taskId the task number, in [0..{@link #MAX_TASKS}[
+	 * @return a new generator, with the same sequence for the same task number
+	 */
+	public Pcg32 forTask(long taskId) {
+		if (taskId < 0 || taskId >= MAX_TASKS)
+			throw new IllegalArgumentException("task number must be in [0.." + MAX_TASKS + "[");
+		return generator(taskId);
+	}
+
+	/**
+	 * Returns the generator of the calling thread, created on the first call by
+	 * this thread.
+	 * 
+	 * @return the generator owned by this thread
+	 */
+	public Pcg32 forThread() {
+		return threadGenerators.get();
+	}
+
+	/**
+	 * Forgets the generator of the calling thread, e.g. before returning a thread
+	 * to a pool. The next call to {@link #forThread()} in this thread will create
+	 * a new generator on a new stream.
+	 */
+	public void releaseThread() {
+		threadGenerators.remove();
+	}
+
+	private Pcg32 generator(long stream) {
+		return new Pcg32(mix(seed + GOLDEN_GAMMA * stream), stream);
+	}
+
+	// SplitMix64 finalizer (Steele et al., 2014)
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
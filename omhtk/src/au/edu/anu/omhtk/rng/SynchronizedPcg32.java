@@ -0,0 +1,164 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * <p>
+ * A thread-safe version of {@link Pcg32}, which obeys the
+ * {@link java.util.Random} contract. All the methods changing the state of the
+ * generator are synchronized on the generator instance.
+ * </p>
+ * <p>
+ * Since every thread has to acquire the same monitor for every draw, a shared
+ * instance of this class serializes the threads using it. When possible, it is
+ * much faster to give each thread its own {@link Pcg32} instance.
+ * </p>
+ */
+public class SynchronizedPcg32 extends Pcg32 {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates a new random number generator using current time (returned by
+	 * {@link System#nanoTime()}) as the seed and a unique stream number.
+	 */
+	public SynchronizedPcg32() {
+		super();
+	}
+
+	/**
+	 * Creates a new random number generator using a {@code long} seed and a
+	 * {@code long} stream number.
+	 * 
+	 * @param initState an initial state
+	 * @param initSeq   an initial stream
+	 * @see #seed(long, long)
+	 */
+	public SynchronizedPcg32(long initState, long initSeq) {
+		super(initState, initSeq);
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		super.setSeed(seed);
+	}
+
+	@Override
+	public synchronized void seed(long initState, long initSeq) {
+		super.seed(initState, initSeq);
+	}
+
+	@Override
+	public synchronized void advance(long delta) {
+		super.advance(delta);
+	}
+
+	/**
+	 * Returns a new thread-safe generator split off this one.
+	 */
+	@Override
+	public synchronized SynchronizedPcg32 split() {
+		return split(this);
+	}
+
+	@Override
+	public SynchronizedPcg32 split(SplittableGenerator source) {
+		long initState = source.nextLong();
+		return new SynchronizedPcg32(initState, source.nextLong());
+	}
+
+	// all other draws are made through nextInt(). These ones are synchronized
+	// as a whole so that their result comes from consecutive draws.
+
+	@Override
+	public synchronized int nextInt() {
+		return super.nextInt();
+	}
+
+	@Override
+	public synchronized long nextLong() {
+		return super.nextLong();
+	}
+
+	@Override
+	public synchronized double nextDouble() {
+		return super.nextDouble();
+	}
+
+	@Override
+	public synchronized double nextGaussian() {
+		return super.nextGaussian();
+	}
+
+	@Override
+	public synchronized double nextExponential() {
+		return super.nextExponential();
+	}
+
+	@Override
+	public synchronized void nextInts(int[] values) {
+		super.nextInts(values);
+	}
+
+	@Override
+	public synchronized void nextInts(int[] values, int bound) {
+		super.nextInts(values, bound);
+	}
+
+	@Override
+	public synchronized void nextLongs(long[] values) {
+		super.nextLongs(values);
+	}
+
+	@Override
+	public synchronized void nextFloats(float[] values) {
+		super.nextFloats(values);
+	}
+
+	@Override
+	public synchronized void nextDoubles(double[] values) {
+		super.nextDoubles(values);
+	}
+
+	@Override
+	public synchronized void nextGaussians(double[] values) {
+		super.nextGaussians(values);
+	}
+
+	@Override
+	public synchronized void nextExponentials(double[] values) {
+		super.nextExponentials(values);
+	}
+
+}
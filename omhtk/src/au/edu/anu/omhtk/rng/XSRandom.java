@@ -31,7 +31,7 @@
  **************************************************************************/
 package au.edu.anu.omhtk.rng;
 
-import java.util.Random;
+import java.util.random.RandomGenerator.SplittableGenerator;
 
 /**
  * <p>
@@ -45,13 +45,15 @@ import java.util.Random;
  * </p>
  * <p>
  * This class is a descendant of the {@link java.util.Random} class. An instance
- * of this class is used to generate a stream of pseudo-random numbers.
+ * of this class is used to generate a stream of pseudo-random numbers. It is
+ * also a {@link SplittableGenerator}, but its instances are not thread-safe:
+ * use {@link #split()} to give each thread its own generator.
  * </p>
  * 
  * @author Ian Davies - Dec 8, 2018
  */
 
-public class XSRandom extends Random {
+public class XSRandom extends AbstractSplittableRandom {
 	private static final long serialVersionUID = 6208727693524452904L;
 	/**
 	 * The seed sets the state of the random number. A stream of generated numbers
@@ -104,6 +106,24 @@ public class XSRandom extends Random {
 		return new XSRandom(getSeed());
 	}
 
+	@Override
+	public XSRandom split() {
+		return split(this);
+	}
+
+	/**
+	 * Returns a new generator seeded with a value drawn from {@code source}.
+	 * 
+	 * @param source the generator providing the seed
+	 * @return a new generator
+	 */
+	@Override
+	public XSRandom split(SplittableGenerator source) {
+		long s = source.nextLong();
+		// a xorshift generator seeded with zero only generates zeros
+		return new XSRandom(s == 0L ? 0x9E3779B97F4A7C15L : s);
+	}
+
 	/**
 	 * Generates the next pseudo-random number.
 	 */
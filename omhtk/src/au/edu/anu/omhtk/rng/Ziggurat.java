@@ -0,0 +1,163 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * <p>
+ * Ziggurat samplers for the standard normal and exponential distributions
+ * (Marsaglia &amp; Tsang, 2000, <em>The ziggurat method for generating random
+ * variables</em>), in the ZIGNOR form of Doornik (2005, <em>An improved
+ * ziggurat method to generate normal random samples</em>). The density is
+ * covered by equal area horizontal layers. Most of the time, a single 64-bit
+ * draw selects a layer and a point in it which falls under the density, and no
+ * transcendental function is called.
+ * </p>
+ * <p>
+ * The tables are computed once, when the class is loaded.
+ * </p>
+ */
+final class Ziggurat {
+
+	// normal: 128 layers
+	private static final int N_LAYERS = 128;
+	private static final double N_R = 3.442619855899;
+	private static final double N_V = 9.91256303526217e-3;
+	// exponential: 256 layers
+	private static final int E_LAYERS = 256;
+	private static final double E_R = 7.69711747013104972;
+	private static final double E_V = 3.949659822581572e-3;
+
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	// layer i spans [0, x[i]] horizontally and [f(x[i]), f(x[i+1])] vertically.
+	// ratio[i] = x[i+1]/x[i] is the fraction of layer i entirely under the
+	// density. Layer 0 is the base layer, which includes the tail beyond r.
+	private static final double[] nX = new double[N_LAYERS + 1];
+	private static final double[] nRatio = new double[N_LAYERS];
+	private static final double[] nF = new double[N_LAYERS + 1];
+	private static final double[] eX = new double[E_LAYERS + 1];
+	private static final double[] eRatio = new double[E_LAYERS];
+	private static final double[] eF = new double[E_LAYERS + 1];
+
+	static {
+		// normal, with f(x) = exp(-x²/2)
+		double f = Math.exp(-0.5 * N_R * N_R);
+		nX[0] = N_V / f;
+		nX[1] = N_R;
+		for (int i = 2; i < N_LAYERS; i++) {
+			nX[i] = Math.sqrt(-2 * Math.log(N_V / nX[i - 1] + f));
+			f = Math.exp(-0.5 * nX[i] * nX[i]);
+		}
+		nX[N_LAYERS] = 0.0;
+		for (int i = 0; i < N_LAYERS; i++)
+			nRatio[i] = nX[i + 1] / nX[i];
+		for (int i = 0; i <= N_LAYERS; i++)
+			nF[i] = Math.exp(-0.5 * nX[i] * nX[i]);
+		// exponential, with f(x) = exp(-x)
+		f = Math.exp(-E_R);
+		eX[0] = E_V / f;
+		eX[1] = E_R;
+		for (int i = 2; i < E_LAYERS; i++) {
+			eX[i] = -Math.log(E_V / eX[i - 1] + f);
+			f = Math.exp(-eX[i]);
+		}
+		eX[E_LAYERS] = 0.0;
+		for (int i = 0; i < E_LAYERS; i++)
+			eRatio[i] = eX[i + 1] / eX[i];
+		for (int i = 0; i <= E_LAYERS; i++)
+			eF[i] = Math.exp(-eX[i]);
+	}
+
+	private Ziggurat() {
+	}
+
+	// uniform in ]0,1]
+	private static double positiveUniform(RandomGenerator rng) {
+		return 1.0 - rng.nextDouble();
+	}
+
+	/**
+	 * @param rng the source of uniform random numbers
+	 * @return a standard normal value
+	 */
+	static double nextGaussian(RandomGenerator rng) {
+		for (;;) {
+			long bits = rng.nextLong();
+			int i = (int) bits & (N_LAYERS - 1);
+			// uniform in [-1,1[ from the 53 high bits
+			double u = 2.0 * ((bits >>> 11) * DOUBLE_UNIT) - 1.0;
+			if (Math.abs(u) < nRatio[i])
+				return u * nX[i];
+			if (i == 0)
+				return normalTail(rng, u < 0);
+			double x = u * nX[i];
+			if (nF[i] + rng.nextDouble() * (nF[i + 1] - nF[i]) < Math.exp(-0.5 * x * x))
+				return x;
+		}
+	}
+
+	// Marsaglia's (1964) method for the tail beyond N_R
+	private static double normalTail(RandomGenerator rng, boolean negative) {
+		double x, y;
+		do {
+			x = Math.log(positiveUniform(rng)) / N_R;
+			y = Math.log(positiveUniform(rng));
+		} while (-2 * y < x * x);
+		return negative ? x - N_R : N_R - x;
+	}
+
+	/**
+	 * @param rng the source of uniform random numbers
+	 * @return an exponential value with mean 1
+	 */
+	static double nextExponential(RandomGenerator rng) {
+		double shift = 0.0;
+		for (;;) {
+			long bits = rng.nextLong();
+			int i = (int) bits & (E_LAYERS - 1);
+			double u = (bits >>> 11) * DOUBLE_UNIT;
+			if (u < eRatio[i])
+				return shift + u * eX[i];
+			if (i == 0)
+				// the tail is again exponential, shifted by E_R
+				shift += E_R;
+			else {
+				double x = u * eX[i];
+				if (eF[i] + rng.nextDouble() * (eF[i + 1] - eF[i]) < Math.exp(-x))
+					return shift + x;
+			}
+		}
+	}
+
+}
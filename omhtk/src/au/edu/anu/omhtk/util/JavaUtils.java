@@ -109,7 +109,7 @@ public class JavaUtils {
 	// Add classes from names package. Search all elements of the class path - disk and Jars
 	//
 	private static DynamicList<Class<?>> getClassesInPackage(String packageName, boolean doTree) {
-		DynamicList<Class<?>> classList = new DynamicList<Class<?>>();
+		DynamicList<Class<?>> classList = new DynamicList<Class<?>>(DynamicList.Option.HASHED);
 
 //		ClassLoader cl = ClassLoader.getSystemClassLoader();
 		ClassLoader cl = Thread.currentThread().getContextClassLoader();
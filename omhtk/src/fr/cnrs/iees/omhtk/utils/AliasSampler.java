@@ -0,0 +1,120 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package fr.cnrs.iees.omhtk.utils;
+
+import java.util.Random;
+
+/**
+ * Random sampling of indices with probabilities proportional to fixed weights,
+ * using Vose's version of Walker's alias method (Vose, 1991, <em>A linear
+ * algorithm for generating random numbers with a given distribution</em>).
+ * <p>
+ * The table is built once in O(n) time, then every draw costs O(1) time: one
+ * uniform index and one uniform real number. Use
+ * {@link DynamicWeightedSampler} if weights change between draws.
+ * </p>
+ */
+public class AliasSampler {
+
+	// probability of keeping column i rather than taking its alias
+	private final double[] prob;
+	private final int[] alias;
+
+	/**
+	 * Builds the alias table for a set of weights.
+	 * 
+	 * @param weights the weights of indices 0..weights.length-1, non-negative and
+	 *                finite, with a positive sum
+	 */
+	public AliasSampler(double[] weights) {
+		super();
+		int n = weights.length;
+		double sum = 0.0;
+		for (double w : weights) {
+			if (!(w >= 0.0) || Double.isInfinite(w))
+				throw new IllegalArgumentException("Weights must be non-negative and finite");
+			sum += w;
+		}
+		if (!(sum > 0.0) || Double.isInfinite(sum))
+			throw new IllegalArgumentException("The sum of weights must be positive and finite");
+		prob = new double[n];
+		alias = new int[n];
+		// weights scaled so that their mean is 1, split into columns below and
+		// above 1 (stacks at both ends of the same array)
+		double[] scaled = new double[n];
+		int[] work = new int[n];
+		int nSmall = 0, large = n;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = weights[i] * n / sum;
+			if (scaled[i] < 1.0)
+				work[nSmall++] = i;
+			else
+				work[--large] = i;
+		}
+		// fill each small column with its alias, a large one
+		while (nSmall > 0 && large < n) {
+			int s = work[--nSmall];
+			int l = work[large++];
+			prob[s] = scaled[s];
+			alias[s] = l;
+			scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+			if (scaled[l] < 1.0)
+				work[nSmall++] = l;
+			else
+				work[--large] = l;
+		}
+		// what remains is full, up to rounding errors
+		while (large < n)
+			prob[work[large++]] = 1.0;
+		while (nSmall > 0)
+			prob[work[--nSmall]] = 1.0;
+	}
+
+	/**
+	 * @return the number of indices
+	 */
+	public int size() {
+		return prob.length;
+	}
+
+	/**
+	 * Draws a random index with a probability proportional to its weight.
+	 * 
+	 * @param rng Random number generator.
+	 * @return an index in [0..size()[
+	 */
+	public int sample(Random rng) {
+		int i = rng.nextInt(prob.length);
+		return rng.nextDouble() < prob[i] ? i : alias[i];
+	}
+
+}
@@ -0,0 +1,202 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package fr.cnrs.iees.omhtk.utils;
+
+import java.util.Random;
+
+/**
+ * Random sampling of indices with probabilities proportional to weights which
+ * can change between draws. The weights are stored in a Fenwick tree (Fenwick,
+ * 1994, <em>A new data structure for cumulative frequency tables</em>), so that
+ * changing a weight and drawing an index both cost O(log n) time, without ever
+ * rebuilding the tree.
+ * <p>
+ * Weight updates are accumulated in the tree's partial sums. After a very
+ * large number of updates, rounding errors may build up: call
+ * {@link #setWeights(double[])} to rebuild the tree exactly.
+ * </p>
+ * <p>
+ * Use {@link AliasSampler} if weights never change: draws are faster.
+ * </p>
+ */
+public class DynamicWeightedSampler {
+
+	private final double[] weights;
+	// Fenwick tree, 1-based: tree[i] = sum of weights ]i-lowbit(i), i]
+	private final double[] tree;
+	// highest power of 2 <= n, where the tree descent starts
+	private final int topBit;
+	// exact number of positive weights, immune to rounding errors in the tree
+	private int nPositive = 0;
+
+	/**
+	 * Creates a sampler for n indices, all with a weight of zero.
+	 * 
+	 * @param n the number of indices
+	 */
+	public DynamicWeightedSampler(int n) {
+		super();
+		if (n < 0)
+			throw new IllegalArgumentException("Size must be non-negative");
+		weights = new double[n];
+		tree = new double[n + 1];
+		topBit = n == 0 ? 0 : Integer.highestOneBit(n);
+	}
+
+	/**
+	 * Creates a sampler with initial weights.
+	 * 
+	 * @param weights the weights of indices 0..weights.length-1, non-negative and
+	 *                finite
+	 */
+	public DynamicWeightedSampler(double[] weights) {
+		this(weights.length);
+		setWeights(weights);
+	}
+
+	private static void checkWeight(double w) {
+		if (!(w >= 0.0) || Double.isInfinite(w))
+			throw new IllegalArgumentException("Weights must be non-negative and finite");
+	}
+
+	/**
+	 * Sets all weights at once and rebuilds the tree, in O(n) time.
+	 * 
+	 * @param newWeights the new weights, as many as indices
+	 */
+	public void setWeights(double[] newWeights) {
+		if (newWeights.length != weights.length)
+			throw new IllegalArgumentException("Expected " + weights.length + " weights");
+		for (double w : newWeights)
+			checkWeight(w);
+		System.arraycopy(newWeights, 0, weights, 0, weights.length);
+		rebuild();
+	}
+
+	// recomputes the tree from the weights, clearing rounding errors
+	private void rebuild() {
+		nPositive = 0;
+		for (double w : weights)
+			if (w > 0.0)
+				nPositive++;
+		for (int i = 1; i < tree.length; i++)
+			tree[i] = weights[i - 1];
+		// push each partial sum to its parent
+		for (int i = 1; i < tree.length; i++) {
+			int parent = i + (i & -i);
+			if (parent < tree.length)
+				tree[parent] += tree[i];
+		}
+	}
+
+	/**
+	 * Changes the weight of one index, in O(log n) time.
+	 * 
+	 * @param index  the index
+	 * @param weight its new weight, non-negative and finite
+	 */
+	public void setWeight(int index, double weight) {
+		checkWeight(weight);
+		double delta = weight - weights[index];
+		if (weights[index] > 0.0)
+			nPositive--;
+		if (weight > 0.0)
+			nPositive++;
+		weights[index] = weight;
+		for (int i = index + 1; i < tree.length; i += i & -i)
+			tree[i] += delta;
+	}
+
+	/**
+	 * @param index the index
+	 * @return its weight
+	 */
+	public double getWeight(int index) {
+		return weights[index];
+	}
+
+	/**
+	 * @return the sum of all weights, computed in O(log n) time
+	 */
+	public double totalWeight() {
+		double sum = 0.0;
+		for (int i = weights.length; i > 0; i -= i & -i)
+			sum += tree[i];
+		return sum;
+	}
+
+	/**
+	 * @return the number of indices
+	 */
+	public int size() {
+		return weights.length;
+	}
+
+	/**
+	 * Draws a random index with a probability proportional to its current
+	 * weight, in O(log n) time.
+	 * 
+	 * @param rng Random number generator.
+	 * @return an index in [0..size()[, with a positive weight
+	 * @throws IllegalStateException if all weights are zero
+	 */
+	public int sample(Random rng) {
+		if (nPositive == 0)
+			throw new IllegalStateException("Cannot sample: all weights are zero");
+		double total = totalWeight();
+		// rounding errors may have cancelled the tree total
+		if (!(total > 0.0)) {
+			rebuild();
+			total = totalWeight();
+		}
+		double u = rng.nextDouble() * total;
+		// find the number of leading indices whose cumulated weight is <= u
+		int pos = 0;
+		for (int bit = topBit; bit > 0; bit >>= 1) {
+			int next = pos + bit;
+			if (next < tree.length && tree[next] <= u) {
+				pos = next;
+				u -= tree[next];
+			}
+		}
+		// pos is the drawn index. Rounding errors may lead to an index with zero
+		// weight, next to the right one.
+		if (pos >= weights.length)
+			pos = weights.length - 1;
+		while (weights[pos] == 0.0 && pos > 0)
+			pos--;
+		while (weights[pos] == 0.0 && pos < weights.length - 1)
+			pos++;
+		return pos;
+	}
+
+}
@@ -31,132 +31,266 @@
  **************************************************************************/
 package fr.cnrs.iees.omhtk.utils;
 
-//import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The <a href=
  * "https://en.wikipedia.org/wiki/Steinhaus%E2%80%93Johnson%E2%80%93Trotter_algorithm">Steinhaus,
  * Johnson and Trotter algorithm</a> for generating permuted indices.
+ * <p>
+ * Permutations of n indices are ordered by <em>rank</em>, from 0 to n!-1, in
+ * the Johnson-Trotter order: each permutation is derived from the previous one
+ * by swapping two adjacent indices. They can be:
+ * </p>
+ * <ul>
+ * <li>all materialised in an array ({@link #getPemutationIndices(int)}), for
+ * small n only;</li>
+ * <li>enumerated lazily ({@link #iterator(int)}, {@link #stream(int, boolean)}),
+ * in sequence or in parallel. Each successive permutation costs O(1) amortized
+ * time and no allocation;</li>
+ * <li>computed directly from their rank ({@link #unrank(int, long)}).</li>
+ * </ul>
+ * <p>
+ * CAUTION: for efficiency, the lazy enumerations return the same {@code int[]}
+ * buffer, modified in place, for every permutation. Copy it if you need to keep
+ * it.
+ * </p>
  *
  * 
  * @author Ian Davies - 4 July 2022
  */
 public class Permute {
 
+	/** The largest number of indices whose permutations can be ranked by a {@code long}. */
+	public static final int MAX_INDICES = 20;
+
 	/**
 	 * @param n The number of indices.
 	 * @return Array of permutations.
+	 * @throws IllegalArgumentException if there are more than
+	 *                                  {@link Integer#MAX_VALUE} permutations
 	 */
 	public static int[][] getPemutationIndices(int n) {
-		int[][] result = new int[fact(n)][n];
-		int[] a = new int[n];
-		boolean[] dir = new boolean[n];
-		for (int i = 0; i < n; i++) {
-			a[i] = i + 1;
-			result[0][i] = i;// zero counting
-		}
-
-		for (int i = 0; i < n; i++)
-			dir[i] = RIGHT_TO_LEFT;
+		long nPerms = nPermutations(n);
+		if (nPerms > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many permutations of " + n + " indices to fit in an array");
+		int[][] result = new int[(int) nPerms][];
+		Iterator<int[]> it = iterator(n);
+		for (int i = 0; i < result.length; i++)
+			result[i] = it.next().clone();
+		return result;
+	}
 
-		for (int i = 1; i < fact(n); i++) {
-			doOnePerm(a, dir, n);
-			for (int j = 0; j < n; j++) {
-				result[i][j] = a[j] - 1;// zero counting
-			}
-		}
+	/**
+	 * @param n The number of indices.
+	 * @return the number of permutations of n indices, i.e. n!
+	 * @throws IllegalArgumentException if n! does not fit in a {@code long}
+	 */
+	public static long nPermutations(int n) {
+		checkSize(n);
+		long result = 1L;
+		for (int i = 2; i <= n; i++)
+			result *= i;
 		return result;
 	}
 
-	private final static boolean LEFT_TO_RIGHT = true;
-	private final static boolean RIGHT_TO_LEFT = false;
+	private static void checkSize(int n) {
+		if (n < 0 || n > MAX_INDICES)
+			throw new IllegalArgumentException("Number of indices must be in [0.." + MAX_INDICES + "]");
+	}
 
-	private static int searchArr(int a[], int n, int mobile) {
-		for (int i = 0; i < n; i++)
+	/**
+	 * Computes the permutation of a given rank directly.
+	 * 
+	 * @param n    The number of indices.
+	 * @param rank the rank of the permutation, in [0..n![
+	 * @return the permutation of rank {@code rank}
+	 */
+	public static int[] unrank(int n, long rank) {
+		return unrank(n, rank, new int[n]);
+	}
 
-			if (a[i] == mobile)
-				return i + 1;
+	/**
+	 * Computes the permutation of a given rank directly, into a caller-supplied
+	 * buffer.
+	 * 
+	 * @param n      The number of indices.
+	 * @param rank   the rank of the permutation, in [0..n![
+	 * @param buffer the array to fill, of length &ge; n
+	 * @return buffer
+	 */
+	public static int[] unrank(int n, long rank, int[] buffer) {
+		if (rank < 0 || rank >= nPermutations(n))
+			throw new IndexOutOfBoundsException("Rank " + rank + " out of range for " + n + " indices");
+		// digits of the rank in the factorial base: index m moved rem[m] times in
+		// its current sweep, in a direction given by the parity of the rank of
+		// the permutation of indices 0..m-1
+		int[] rem = new int[n];
+		boolean[] odd = new boolean[n];
+		long r = rank;
+		for (int m = n - 1; m > 0; m--) {
+			rem[m] = (int) (r % (m + 1));
+			r /= m + 1;
+			odd[m] = (r & 1L) != 0;
+		}
+		// insert indices one after the other
+		for (int m = 0; m < n; m++) {
+			int at = odd[m] ? rem[m] : m - rem[m];
+			System.arraycopy(buffer, at, buffer, at + 1, m - at);
+			buffer[at] = m;
+		}
+		return buffer;
+	}
 
-		return 0;
+	/**
+	 * Lazy enumeration of all the permutations of n indices, in rank order. The
+	 * iterator returns the same buffer for all permutations.
+	 * 
+	 * @param n The number of indices.
+	 * @return an iterator over the permutations
+	 */
+	public static Iterator<int[]> iterator(int n) {
+		return Spliterators.iterator(spliterator(n));
 	}
 
 	/**
-	 * To carry out step 1 of the algorithm i.e. to find the largest mobile integer.
+	 * Lazy enumeration of all the permutations of n indices. When parallel, the
+	 * stream splits by ranges of ranks, each range reusing its own buffer.
+	 * 
+	 * @param n        The number of indices.
+	 * @param parallel {@code true} for a parallel stream
+	 * @return a stream of the permutations
 	 */
-	private static int getMobile(int a[], boolean dir[], int n) {
-		int mobile_prev = 0, mobile = 0;
-
-		for (int i = 0; i < n; i++) {
-			// direction 0 represents
-			// RIGHT TO LEFT.
-			if (dir[a[i] - 1] == RIGHT_TO_LEFT && i != 0) {
-				if (a[i] > a[i - 1] && a[i] > mobile_prev) {
-					mobile = a[i];
-					mobile_prev = mobile;
-				}
-			}
+	public static Stream<int[]> stream(int n, boolean parallel) {
+		return StreamSupport.stream(spliterator(n), parallel);
+	}
 
-			// direction 1 represents
-			// LEFT TO RIGHT.
-			if (dir[a[i] - 1] == LEFT_TO_RIGHT && i != n - 1) {
-				if (a[i] > a[i + 1] && a[i] > mobile_prev) {
-					mobile = a[i];
-					mobile_prev = mobile;
-				}
-			}
+	/**
+	 * @param n The number of indices.
+	 * @return a spliterator over all the permutations of n indices, splitting by
+	 *         ranges of ranks
+	 */
+	public static Spliterator<int[]> spliterator(int n) {
+		return new PermutationSpliterator(n, 0L, nPermutations(n));
+	}
+
+	/**
+	 * Enumerates the permutations of ranks [rank,fence[. The state of the
+	 * enumeration is kept as: the permutation itself, the position of each index
+	 * in it, and, for each index, the number of moves made in its current sweep
+	 * and the direction of this sweep. Index m makes sweeps of m moves. The next
+	 * permutation is obtained by moving the largest index with an unfinished
+	 * sweep, and starting new sweeps, in the opposite direction, for all larger
+	 * indices.
+	 */
+	private static class PermutationSpliterator implements Spliterator<int[]> {
+		private final int n;
+		private long rank;
+		private final long fence;
+		// null until the first permutation is computed
+		private int[] perm = null;
+		private int[] pos;
+		private int[] moves;
+		private int[] dir;
+
+		PermutationSpliterator(int n, long rank, long fence) {
+			this.n = n;
+			this.rank = rank;
+			this.fence = fence;
 		}
 
-		if (mobile == 0 && mobile_prev == 0)
-			return 0;
-		else
-			return mobile;
-	}
+		// sets the state for the permutation of the current rank
+		private void seek() {
+			perm = unrank(n, rank, new int[n]);
+			pos = new int[n];
+			moves = new int[n];
+			dir = new int[n];
+			for (int i = 0; i < n; i++)
+				pos[perm[i]] = i;
+			long r = rank;
+			for (int m = n - 1; m > 0; m--) {
+				moves[m] = (int) (r % (m + 1));
+				r /= m + 1;
+				dir[m] = (r & 1L) != 0 ? 1 : -1;
+			}
+		}
 
-	private static int doOnePerm(int a[], boolean dir[], int n) {
-		int mobile = getMobile(a, dir, n);
-		int pos = searchArr(a, n, mobile);
-
-		// swapping the elements
-		// according to the
-		// direction i.e. dir[].
-		if (dir[a[pos - 1] - 1] == RIGHT_TO_LEFT) {
-			int temp = a[pos - 1];
-			a[pos - 1] = a[pos - 2];
-			a[pos - 2] = temp;
-		} else if (dir[a[pos - 1] - 1] == LEFT_TO_RIGHT) {
-			int temp = a[pos];
-			a[pos] = a[pos - 1];
-			a[pos - 1] = temp;
+		// moves to the next permutation
+		private void step() {
+			int m = n - 1;
+			while (moves[m] == m) {
+				moves[m] = 0;
+				dir[m] = -dir[m];
+				m--;
+			}
+			int p = pos[m];
+			int q = p + dir[m];
+			int other = perm[q];
+			perm[q] = m;
+			perm[p] = other;
+			pos[m] = q;
+			pos[other] = p;
+			moves[m]++;
 		}
 
-		// changing the directions
-		// for elements greater
-		// than largest mobile integer.
-		for (int i = 0; i < n; i++) {
-			if (a[i] > mobile) {
-				if (dir[a[i] - 1] == LEFT_TO_RIGHT)
-					dir[a[i] - 1] = RIGHT_TO_LEFT;
+		@Override
+		public boolean tryAdvance(Consumer<? super int[]> action) {
+			if (rank >= fence)
+				return false;
+			if (perm == null)
+				seek();
+			else
+				step();
+			rank++;
+			action.accept(perm);
+			return true;
+		}
 
-				else if (dir[a[i] - 1] == RIGHT_TO_LEFT)
-					dir[a[i] - 1] = LEFT_TO_RIGHT;
+		@Override
+		public void forEachRemaining(Consumer<? super int[]> action) {
+			if (rank >= fence)
+				return;
+			if (perm == null)
+				seek();
+			else
+				step();
+			action.accept(perm);
+			for (rank++; rank < fence; rank++) {
+				step();
+				action.accept(perm);
 			}
 		}
 
-		return 0;
-	}
+		@Override
+		public Spliterator<int[]> trySplit() {
+			long lo = rank, mid = (lo + fence) >>> 1;
+			if (mid <= lo)
+				return null;
+			// the prefix carries on from the current state, this one will seek
+			PermutationSpliterator prefix = new PermutationSpliterator(n, lo, mid);
+			prefix.perm = perm;
+			prefix.pos = pos;
+			prefix.moves = moves;
+			prefix.dir = dir;
+			perm = null;
+			rank = mid;
+			return prefix;
+		}
 
-	private static int fact(int n) {
-		int res = 1;
+		@Override
+		public long estimateSize() {
+			return fence - rank;
+		}
 
-		for (int i = 1; i <= n; i++)
-			res = res * i;
-		return res;
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
 	}
 
-//	public static void main(String argc[]) {
-//		int n = 6;
-//		int[][] p = getPemutationIndices(n);
-//		System.out.println(Arrays.deepToString(p));
-//	}
-
 }
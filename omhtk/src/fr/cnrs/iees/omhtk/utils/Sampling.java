@@ -0,0 +1,234 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2021: Shayne R. Flint, Jacques Gignoux & Ian D. Davies      *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent class hierarchies, plus some other utilities. The kind of  *
+ *  things you need in all software projects and keep rebuilding all the  * 
+ *  time.                                                                 *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with OMHTK.
+ *  If not, see <https://www.gnu.org/licenses/gpl.html>.                  *
+ *                                                                        *
+ **************************************************************************/
+package fr.cnrs.iees.omhtk.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import au.edu.anu.omhtk.rng.Pcg32;
+
+/**
+ * Random sampling of k elements without replacement, in a single pass and
+ * O(k) memory, from populations which need not be copied into a list first.
+ * <ul>
+ * <li>{@link #sample(Collection, int, Random)} works on any collection of known
+ * size ({@link au.edu.anu.omhtk.collections.DynamicList DynamicList},
+ * {@link au.edu.anu.omhtk.collections.QuickListOfLists QuickListOfLists}...):
+ * it draws k indices with Floyd's algorithm (Bentley &amp; Floyd, 1987, <em>A
+ * sample of brilliance</em>), then picks them in one iteration.</li>
+ * <li>{@link #reservoirSample(Iterator, int, Random)} works on populations of
+ * unknown size (iterators, streams): it uses Li's Algorithm L (Li, 1994,
+ * <em>Reservoir-sampling algorithms of time complexity
+ * O(n(1+log(N/n)))</em>), which draws random numbers only for the elements it
+ * keeps rather than for every element.</li>
+ * </ul>
+ * If the population has fewer than k elements, all of them are returned.
+ */
+public class Sampling {
+
+	// generators for the methods without a generator argument. Pcg32 is not
+	// thread-safe, hence one per thread.
+	private static final ThreadLocal<Pcg32> defaultRng = ThreadLocal.withInitial(Pcg32::new);
+
+	private Sampling() {
+	}
+
+	private static void checkSampleSize(int k) {
+		if (k < 0)
+			throw new IllegalArgumentException("Sample size must be non-negative");
+	}
+
+	/**
+	 * Draws k distinct indices in [0..n[ with Floyd's algorithm, with exactly k
+	 * random draws and O(k) memory.
+	 * 
+	 * @param n   the population size
+	 * @param k   the sample size, at most n
+	 * @param rng Random number generator.
+	 * @return the k indices, in increasing order
+	 */
+	public static int[] sampleIndices(int n, int k, Random rng) {
+		checkSampleSize(k);
+		if (k > n)
+			throw new IllegalArgumentException("Sample size " + k + " larger than population size " + n);
+		Set<Integer> selected = new HashSet<>((int) (k / 0.75f) + 1);
+		for (int j = n - k; j < n; j++) {
+			int t = rng.nextInt(j + 1);
+			// t already taken: j cannot be, and is taken instead
+			if (!selected.add(t))
+				selected.add(j);
+		}
+		int[] result = new int[k];
+		int i = 0;
+		for (int index : selected)
+			result[i++] = index;
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Draws k elements from a collection, see
+	 * {@link #sample(Collection, int, Random)}.
+	 * 
+	 * @param <T>        the element type
+	 * @param population the collection to sample
+	 * @param k          the sample size
+	 * @return a list of min(k, population.size()) elements
+	 */
+	public static <T> List<T> sample(Collection<T> population, int k) {
+		return sample(population, k, defaultRng.get());
+	}
+
+	/**
+	 * Draws k elements without replacement from a collection of known size. The
+	 * indices are drawn first ({@link #sampleIndices(int, int, Random)}), then
+	 * the elements are picked in a single iteration, stopping at the last one
+	 * needed, or directly for {@link RandomAccess} lists.
+	 * 
+	 * @param <T>        the element type
+	 * @param population the collection to sample
+	 * @param k          the sample size
+	 * @param rng        Random number generator.
+	 * @return a list of min(k, population.size()) elements, in the population's
+	 *         iteration order
+	 */
+	public static <T> List<T> sample(Collection<T> population, int k, Random rng) {
+		checkSampleSize(k);
+		int n = population.size();
+		if (k >= n)
+			return new ArrayList<>(population);
+		int[] indices = sampleIndices(n, k, rng);
+		List<T> result = new ArrayList<>(k);
+		if (population instanceof List<T> list && population instanceof RandomAccess) {
+			for (int index : indices)
+				result.add(list.get(index));
+			return result;
+		}
+		Iterator<T> it = population.iterator();
+		int position = 0;
+		for (int index : indices) {
+			while (position < index) {
+				it.next();
+				position++;
+			}
+			result.add(it.next());
+			position++;
+		}
+		return result;
+	}
+
+	/**
+	 * Draws k elements from an iterable, see
+	 * {@link #reservoirSample(Iterator, int, Random)}.
+	 * 
+	 * @param <T>        the element type
+	 * @param population the elements to sample
+	 * @param k          the sample size
+	 * @return a list of at most k elements
+	 */
+	public static <T> List<T> reservoirSample(Iterable<T> population, int k) {
+		return reservoirSample(population.iterator(), k, defaultRng.get());
+	}
+
+	/**
+	 * Draws k elements from an iterable, see
+	 * {@link #reservoirSample(Iterator, int, Random)}.
+	 * 
+	 * @param <T>        the element type
+	 * @param population the elements to sample
+	 * @param k          the sample size
+	 * @param rng        Random number generator.
+	 * @return a list of at most k elements
+	 */
+	public static <T> List<T> reservoirSample(Iterable<T> population, int k, Random rng) {
+		return reservoirSample(population.iterator(), k, rng);
+	}
+
+	/**
+	 * Draws k elements from a stream, see
+	 * {@link #reservoirSample(Iterator, int, Random)}. The stream is consumed.
+	 * 
+	 * @param <T>        the element type
+	 * @param population the elements to sample
+	 * @param k          the sample size
+	 * @param rng        Random number generator.
+	 * @return a list of at most k elements
+	 */
+	public static <T> List<T> reservoirSample(Stream<T> population, int k, Random rng) {
+		return reservoirSample(population.iterator(), k, rng);
+	}
+
+	/**
+	 * Draws k elements without replacement from a population of unknown size,
+	 * with Algorithm L: after filling the reservoir with the first k elements,
+	 * the number of elements to skip before the next replacement is drawn
+	 * directly, so that only O(k(1+log(n/k))) random numbers are drawn for n
+	 * elements. The iterator is consumed.
+	 * 
+	 * @param <T>        the element type
+	 * @param population the elements to sample
+	 * @param k          the sample size
+	 * @param rng        Random number generator.
+	 * @return a list of min(k, n) elements, in no particular order
+	 */
+	public static <T> List<T> reservoirSample(Iterator<T> population, int k, Random rng) {
+		checkSampleSize(k);
+		List<T> reservoir = new ArrayList<>(k);
+		while (reservoir.size() < k && population.hasNext())
+			reservoir.add(population.next());
+		if (k == 0 || reservoir.size() < k)
+			return reservoir;
+		// 1-nextDouble() is in ]0,1], avoiding log(0)
+		double w = Math.exp(Math.log(1.0 - rng.nextDouble()) / k);
+		while (population.hasNext()) {
+			// number of elements to skip, geometrically distributed
+			double skip = Math.floor(Math.log(1.0 - rng.nextDouble()) / Math.log1p(-w));
+			for (long s = 0; s < skip; s++) {
+				population.next();
+				if (!population.hasNext())
+					return reservoir;
+			}
+			reservoir.set(rng.nextInt(k), population.next());
+			w *= Math.exp(Math.log(1.0 - rng.nextDouble()) / k);
+		}
+		return reservoir;
+	}
+
+}
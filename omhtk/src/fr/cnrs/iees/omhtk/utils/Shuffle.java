@@ -1,20 +1,33 @@
 package fr.cnrs.iees.omhtk.utils;
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.RecursiveAction;
 
 import au.edu.anu.omhtk.rng.Pcg32;
 
 /**
  * Shuffle methods.
+ * <p>
+ * The methods working on {@code int[]} arrays shuffle in place and allocate
+ * nothing, so that they can be called at every time step on large arrays. They
+ * use the same algorithm (Fisher-Yates) and random draws as
+ * {@link java.util.Collections#shuffle(java.util.List, Random)}, so that both
+ * give the same result with generators in the same state.
+ * </p>
+ * <p>
+ * For very large arrays, {@link #parallelShuffle(int[], Random)} uses the
+ * fork-join pool.
+ * </p>
  * 
  * @author Ian Davies - 4 July 2022
  * 
  */
 public class Shuffle {
+
+	// generators for the methods without a generator argument. Pcg32 is not
+	// thread-safe, hence one per thread.
+	private static final ThreadLocal<Pcg32> defaultRng = ThreadLocal.withInitial(Pcg32::new);
+
 	/**
 	 * Random ordering of n indices. Substitutes {@link Pcg32} for java native
 	 * random generator
@@ -23,8 +36,7 @@ public class Shuffle {
 	 * @return a random ordering of sequential numbers from 0 to n-1 inclusive.
 	 */
 	public static Integer[] shuffleIndices(int n) {
-		Random rng = new Pcg32();
-		return shuffleIndices(n, rng);
+		return shuffleIndices(n, defaultRng.get());
 	}
 
 	/**
@@ -35,10 +47,198 @@ public class Shuffle {
 	 * @return a random ordering of sequential numbers from 0 to n-1 inclusive.
 	 */
 	public static Integer[] shuffleIndices(int n, Random rng) {
-		List<Integer> bag = IntStream.rangeClosed(0, n - 1).boxed().collect(Collectors.toList());
-		Collections.shuffle(bag, rng);
-		return bag.toArray(new Integer[0]);
+		int[] indices = shuffleIndices(new int[n], rng);
+		Integer[] result = new Integer[n];
+		for (int i = 0; i < n; i++)
+			result[i] = indices[i];
+		return result;
+	}
+
+	/**
+	 * Random ordering of indices in a caller-supplied array, which is filled with
+	 * the numbers from 0 to buffer.length-1 in random order. Nothing is allocated.
+	 * 
+	 * @param buffer the array to fill
+	 * @param rng    Random number generator.
+	 * @return buffer
+	 */
+	public static int[] shuffleIndices(int[] buffer, Random rng) {
+		for (int i = 0; i < buffer.length; i++)
+			buffer[i] = i;
+		shuffle(buffer, rng);
+		return buffer;
+	}
+
+	/**
+	 * In-place random ordering of an array (Fisher-Yates shuffle).
+	 * 
+	 * @param values the array to shuffle
+	 * @param rng    Random number generator.
+	 */
+	public static void shuffle(int[] values, Random rng) {
+		for (int i = values.length; i > 1; i--) {
+			int j = rng.nextInt(i);
+			int tmp = values[i - 1];
+			values[i - 1] = values[j];
+			values[j] = tmp;
+		}
+	}
+
+	/** Size of the array sections shuffled sequentially by the parallel shuffle. */
+	static final int PARALLEL_LEAF_SIZE = 1 << 16;
+
+	/**
+	 * In-place parallel random ordering of an array, using the MergeShuffle
+	 * algorithm (Bacher et al., 2015, <em>MergeShuffle: a very fast, parallel
+	 * random permutation algorithm</em>): the array is recursively split in halves
+	 * which are shuffled in parallel, then merged by a random riffle which
+	 * preserves the uniformity of the permutation.
+	 * <p>
+	 * The splitting does not depend on the number of threads, and every section
+	 * of the array uses its own {@link Pcg32} generator, seeded from two values
+	 * drawn from {@code rng}. As a consequence, the result only depends on the
+	 * state of {@code rng}, not on the number of threads nor on their scheduling.
+	 * It differs from the result of {@link #shuffle(int[], Random)}.
+	 * </p>
+	 * <p>
+	 * This method runs in the fork-join pool of the calling thread if it is a
+	 * fork-join worker, in the common pool otherwise.
+	 * </p>
+	 * 
+	 * @param values the array to shuffle
+	 * @param rng    the generator providing the seeds
+	 */
+	public static void parallelShuffle(int[] values, Random rng) {
+		parallelShuffle(values, rng, PARALLEL_LEAF_SIZE, false);
+	}
 
+	/**
+	 * Parallel version of {@link #shuffleIndices(int[], Random)}, cf.
+	 * {@link #parallelShuffle(int[], Random)}.
+	 * 
+	 * @param buffer the array to fill
+	 * @param rng    the generator providing the seeds
+	 * @return buffer
+	 */
+	public static int[] parallelShuffleIndices(int[] buffer, Random rng) {
+		parallelShuffle(buffer, rng, PARALLEL_LEAF_SIZE, true);
+		return buffer;
+	}
+
+	// leafSize is a parameter for testing on small arrays
+	static void parallelShuffle(int[] values, Random rng, int leafSize, boolean fill) {
+		long seed = rng.nextLong();
+		long stream = rng.nextLong();
+		new MergeShuffleTask(values, 0, values.length, 1L, seed, stream, leafSize, fill).invoke();
+	}
+
+	/**
+	 * Shuffles section [lo,hi[ of the array. Tasks are numbered as in a binary
+	 * heap (children of node k are 2k and 2k+1), and each one seeds its own
+	 * generator from its number.
+	 */
+	private static class MergeShuffleTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+		private final int[] a;
+		private final int lo, hi;
+		private final long node, seed, stream;
+		private final int leafSize;
+		private final boolean fill;
+
+		MergeShuffleTask(int[] a, int lo, int hi, long node, long seed, long stream, int leafSize, boolean fill) {
+			this.a = a;
+			this.lo = lo;
+			this.hi = hi;
+			this.node = node;
+			this.seed = seed;
+			this.stream = stream;
+			this.leafSize = leafSize;
+			this.fill = fill;
+		}
+
+		@Override
+		protected void compute() {
+			Pcg32 rng = new Pcg32(mix(seed + GOLDEN_GAMMA * node), stream ^ node);
+			if (hi - lo <= leafSize) {
+				if (fill)
+					for (int i = lo; i < hi; i++)
+						a[i] = i;
+				for (int i = hi; i > lo + 1; i--) {
+					int j = lo + rng.nextInt(i - lo);
+					int tmp = a[i - 1];
+					a[i - 1] = a[j];
+					a[j] = tmp;
+				}
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new MergeShuffleTask(a, lo, mid, 2 * node, seed, stream, leafSize, fill),
+				new MergeShuffleTask(a, mid, hi, 2 * node + 1, seed, stream, leafSize, fill));
+			merge(rng, mid);
+		}
+
+		// the MergeShuffle merge of the shuffled sections [lo,mid[ and [mid,hi[
+		private void merge(Pcg32 rng, int mid) {
+			int i = lo, j = mid;
+			int bits = 0, nBits = 0;
+			for (;; i++) {
+				if (nBits == 0) {
+					bits = rng.nextInt();
+					nBits = 32;
+				}
+				boolean flip = (bits & 1) != 0;
+				bits >>>= 1;
+				nBits--;
+				if (flip) {
+					if (j == hi)
+						break;
+					int tmp = a[i];
+					a[i] = a[j];
+					a[j] = tmp;
+					j++;
+				} else if (i == j)
+					break;
+			}
+			// one of the sections is exhausted: insert the remaining items at
+			// random positions
+			for (; i < hi; i++) {
+				int m = lo + rng.nextInt(i - lo + 1);
+				int tmp = a[i];
+				a[i] = a[m];
+				a[m] = tmp;
+			}
+		}
+
+		// SplitMix64 finalizer
+		private static long mix(long z) {
+			z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+			z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+			return z ^ (z >>> 31);
+		}
+	}
+
+	/**
+	 * In-place partial random ordering of an array: after this call, the first k
+	 * items of the array are a uniformly drawn random sample of k items of the
+	 * array, in random order. The other items are left in arbitrary order. This
+	 * only costs k random draws, whatever the size of the array.
+	 * 
+	 * @param values the array to shuffle
+	 * @param k      the number of items to draw, &le; values.length
+	 * @param rng    Random number generator.
+	 */
+	public static void partialShuffle(int[] values, int k, Random rng) {
+		int n = values.length;
+		if (k < 0 || k > n)
+			throw new IllegalArgumentException("Cannot draw " + k + " items out of " + n);
+		for (int i = 0; i < k; i++) {
+			int j = i + rng.nextInt(n - i);
+			int tmp = values[i];
+			values[i] = values[j];
+			values[j] = tmp;
+		}
 	}
 
 }
@@ -0,0 +1,97 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentDynamicListTest {
+
+	@Test
+	void testCorrectingIterator() {
+		ConcurrentDynamicList<Integer> l = new ConcurrentDynamicList<>(1,2,3,4,5);
+		int sum = 0;
+		for (int i:l) {
+			sum += i;
+			if (i==2) {
+				l.remove(3);
+				l.remove(4);
+			}
+		}
+		assertEquals(sum,8);
+		assertEquals(l.toString(),"{1, 2, 5}");
+		assertFalse(l.addUnique(5));
+		assertEquals(l.toShortString(),"[ConcurrentDynamicList of 3 element(s)]");
+	}
+
+	@Test
+	void testProducersConsumers() throws Exception {
+		ConcurrentDynamicList<Integer> l = new ConcurrentDynamicList<>();
+		int nThreads = 4;
+		int n = 10000;
+		AtomicLong consumed = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(2*nThreads);
+		Future<?>[] producers = new Future<?>[nThreads];
+		for (int t=0; t<nThreads; t++) {
+			final boolean first = t%2==0;
+			producers[t] = pool.submit(()->{
+				for (int i=1; i<=n; i++)
+					if (first)
+						l.offerFirst(i);
+					else
+						l.offerLast(i);
+			});
+			pool.submit(()->{
+				int count = 0;
+				while (count<n) {
+					Integer i = first ? l.pollLast() : l.pollFirst();
+					if (i!=null) {
+						consumed.addAndGet(i);
+						count++;
+					}
+				}
+			});
+		}
+		for (Future<?> f:producers)
+			f.get();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30,TimeUnit.SECONDS));
+		assertTrue(l.isEmpty());
+		assertEquals(consumed.get(),(long)nThreads*n*(n+1)/2);
+	}
+
+}
@@ -31,7 +31,15 @@ package au.edu.anu.omhtk.collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -124,6 +132,336 @@ class DynamicListTest {
 		assertEquals(i,15);
 	}
 
+	@Test
+	void testRemoveConsecutiveWhileIterating() {
+		int i=0;
+		for (int ii:l2) {
+			i += ii;
+			if (ii==2) {
+				l2.remove((Integer)3);
+				l2.remove((Integer)4);
+			}
+		}
+		assertEquals(i,8);
+		assertEquals(l2.size(),3);
+	}
+
+	@Test
+	void testIndexed() {
+		DynamicList<Integer> l = new DynamicList<>(DynamicList.Option.INDEXED);
+		assertTrue(l.isIndexed());
+		assertFalse(l2.isIndexed());
+		List<Integer> ref = new ArrayList<>();
+		Random rng = new Random(42);
+		for (int k=0; k<5000; k++) {
+			int op = rng.nextInt(6);
+			if (op<2 || ref.isEmpty()) {
+				int pos = rng.nextInt(ref.size()+1);
+				l.add(pos,k);
+				ref.add(pos,k);
+			}
+			else if (op==2) {
+				l.addFirst(k);
+				ref.add(0,k);
+			}
+			else if (op==3) {
+				int pos = rng.nextInt(ref.size());
+				assertEquals(l.remove(pos),ref.remove(pos));
+			}
+			else if (op==4) {
+				int pos = rng.nextInt(ref.size());
+				assertEquals(l.set(pos,-k),ref.set(pos,-k));
+			}
+			else
+				assertEquals(l.removeLast(),ref.remove(ref.size()-1));
+		}
+		assertEquals(l.size(),ref.size());
+		for (int k=0; k<ref.size(); k++)
+			assertEquals(l.get(k),ref.get(k));
+		// removal while looping works the same as in the linked mode
+		int n = l.size();
+		for (int ii:l)
+			if (ii%2==0)
+				l.remove((Integer)ii);
+		ref.removeIf(ii->ii%2==0);
+		assertEquals(l.size(),ref.size());
+		assertTrue(l.size()<n);
+		for (int k=0; k<ref.size(); k++)
+			assertEquals(l.get(k),ref.get(k));
+		l.clear();
+		assertTrue(l.isEmpty());
+		l.add(1);
+		assertEquals(l.get(0),1);
+	}
+
+	@Test
+	void testIndexedRemoveWhileIterating() {
+		// removals in the middle leave holes in the index: a large loop stays linear
+		DynamicList<Integer> l = new DynamicList<>(DynamicList.Option.INDEXED);
+		List<Integer> ref = new ArrayList<>();
+		int n = 400000;
+		for (int k=0; k<n; k++) {
+			l.add(k);
+			ref.add(k);
+		}
+		Iterator<Integer> it = l.iterator();
+		while (it.hasNext()) {
+			int ii = it.next();
+			if (ii%2==1)
+				it.remove();
+			else if (ii%10==0) {
+				// insertions at both ends while there are holes
+				l.addLast(-ii-1);
+				l.addFirst(-ii-2);
+			}
+		}
+		List<Integer> expected = new ArrayList<>();
+		for (int ii:ref)
+			if (ii%2==0 && ii%10==0)
+				expected.add(0,-ii-2);
+		for (int ii:ref)
+			if (ii%2==0)
+				expected.add(ii);
+		for (int ii:ref)
+			if (ii%2==0 && ii%10==0)
+				expected.add(-ii-1);
+		assertEquals(l.size(),expected.size());
+		assertEquals(l.stream().collect(Collectors.toList()),expected);
+		for (int k=0; k<expected.size(); k+=997)
+			assertEquals(l.get(k),expected.get(k));
+		assertEquals(l.indexOf(0),expected.indexOf(0));
+		// removal inside the list, then insertion inside the list
+		assertEquals(l.remove(expected.size()/2),expected.remove(expected.size()/2));
+		l.add(expected.size()/3,7);
+		expected.add(expected.size()/3,7);
+		for (int k=0; k<expected.size(); k+=997)
+			assertEquals(l.get(k),expected.get(k));
+		assertEquals(l.indexOf(7),expected.size()/3);
+	}
+
+	@Test
+	void testHashed() {
+		DynamicList<Integer> l = new DynamicList<>(DynamicList.Option.HASHED,DynamicList.Option.INDEXED);
+		assertTrue(l.isHashed());
+		assertFalse(l2.isHashed());
+		for (int i=0; i<500; i++)
+			assertTrue(l.addUnique(i));
+		assertFalse(l.addAllUnique(List.of(12,499)));
+		assertEquals(l.size(),500);
+		assertTrue(l.contains(250));
+		assertEquals(l.indexOf(250),250);
+		assertTrue(l.remove((Integer)250));
+		assertFalse(l.contains(250));
+		assertFalse(l.remove((Integer)250));
+		assertEquals(l.indexOf(251),250);
+		// duplicates
+		l.addFirst(251);
+		assertEquals(l.indexOf(251),0);
+		assertEquals(l.lastIndexOf(251),251);
+		assertTrue(l.remove((Integer)251));
+		assertEquals(l.indexOf(251),250);
+		assertTrue(l.contains(251));
+		// replacing items
+		l.set(0,-1);
+		assertFalse(l.contains(0));
+		assertTrue(l.contains(-1));
+		l.clear();
+		assertFalse(l.contains(-1));
+	}
+
+	@Test
+	void testIdentityHashed() {
+		DynamicList<String> l = new DynamicList<>(DynamicList.Option.IDENTITY_HASHED);
+		String a = "a";
+		String b = new String(a);
+		l.add(a);
+		assertTrue(l.contains(a));
+		assertFalse(l.contains(b));
+		assertTrue(l.addUnique(b));
+		assertEquals(l.size(),2);
+		assertTrue(l.remove(b));
+		assertEquals(l.get(0),a);
+		// bulk operations compare items the way the receiving list does
+		DynamicList<String> e = new DynamicList<>(DynamicList.Option.HASHED);
+		e.add(b);
+		e.add("c");
+		assertTrue(e.removeAll(l));
+		assertEquals(e.size(),1);
+		assertEquals(e.get(0),"c");
+		e.add(b);
+		assertFalse(l.removeAll(e));
+		assertEquals(e.difference(l).toString(),new DynamicList<>("c").toString());
+		assertEquals(l.difference(e).size(),3);
+	}
+
+	@Test
+	void testRecycling() {
+		DynamicList<Integer> l = new DynamicList<>(DynamicList.Option.RECYCLING);
+		assertTrue(l.isRecycling());
+		assertFalse(l2.isRecycling());
+		// as a stack
+		for (int k=0; k<10; k++) {
+			for (int i=0; i<100; i++)
+				l.push(i);
+			for (int i=99; i>=0; i--)
+				assertEquals(l.pop(),i);
+		}
+		assertTrue(l.isEmpty());
+		// as a queue
+		for (int i=0; i<100; i++)
+			l.offerLast(i);
+		for (int i=0; i<1000; i++) {
+			assertEquals(l.pollFirst(),i);
+			l.offerLast(i+100);
+		}
+		assertEquals(l.size(),100);
+		// removed nodes must not be reused while an iterator may point at them
+		int sum=0;
+		for (int ii:l) {
+			if (ii%2==0) {
+				l.remove((Integer)ii);
+				l.remove((Integer)(ii+1));
+				l.add(-1);
+			}
+			else
+				sum += ii;
+		}
+		assertEquals(sum,-50);
+		assertEquals(l.size(),50);
+		for (int ii:l)
+			assertEquals(ii,-1);
+		assertEquals(l.remove(0),-1);
+		// abandoned iterators do not stop recycling
+		for (int ii:l)
+			if (ii==-1)
+				break;
+		Iterator<Integer> it = l.iterator();
+		assertEquals(it.next(),-1);
+		l.remove(1);
+		for (int i=0; i<2000; i++) {
+			l.addFirst(i);
+			l.removeFirst();
+		}
+		// but an iterator left on a reused node fails
+		assertThrows(ConcurrentModificationException.class,()->it.hasNext());
+		Iterator<Integer> dit = l.descendingIterator();
+		assertEquals(dit.next(),-1);
+		l.removeLast();
+		l.removeLast();
+		for (int i=0; i<2000; i++) {
+			l.addLast(i);
+			l.removeLast();
+		}
+		assertThrows(ConcurrentModificationException.class,()->dit.next());
+		// bursts of insertions reuse nodes too
+		DynamicList<Integer> q = new DynamicList<>(DynamicList.Option.RECYCLING);
+		for (int i=0; i<5000; i++)
+			q.add(i);
+		for (int i=0; i<2000; i++)
+			q.removeFirst();
+		assertEquals(q.nFreeNodes(),2000);
+		for (int k : new int[] {1,2,5,50,500}) {
+			for (int step=0; step<100; step++) {
+				for (int i=0; i<k; i++)
+					q.addLast(i);
+				for (int i=0; i<k; i++)
+					q.removeFirst();
+			}
+			int free = q.nFreeNodes();
+			for (int i=0; i<k; i++)
+				q.addLast(i);
+			assertEquals(q.nFreeNodes(),free-k);
+			for (int i=0; i<k; i++)
+				q.removeFirst();
+		}
+	}
+
+	@Test
+	void testBulkOperations() {
+		DynamicList<Integer> l = new DynamicList<>();
+		for (int i=0; i<20; i++)
+			l.add(i%10);
+		assertFalse(l.removeAll(List.of(42)));
+		assertTrue(l.removeAll(List.of(1,2,3)));
+		assertEquals(l.size(),14);
+		assertFalse(l.contains(2));
+		assertTrue(l.retainAll(Set.of(4,5,9)));
+		assertEquals(l.toString(),"{4, 5, 9, 4, 5, 9}");
+		assertFalse(l.retainAll(Set.of(4,5,9)));
+		// indexed mode: positions are right after bulk removal
+		DynamicList<Integer> il = new DynamicList<>(DynamicList.Option.INDEXED);
+		for (int i=0; i<1000; i++)
+			il.add(i);
+		assertTrue(il.removeAll(il.stream().filter(i->i%3==0).collect(Collectors.toSet())));
+		assertTrue(il.retainAll(il.stream().filter(i->i<600).collect(Collectors.toSet())));
+		assertEquals(il.size(),400);
+		for (int i=0; i<400; i++)
+			assertEquals(il.get(i),3*(i/2)+1+i%2);
+		il.addFirst(-1);
+		assertEquals(il.get(1),1);
+		assertEquals(il.indexOf(2),2);
+		// removal of consecutive items while iterating
+		int sum=0;
+		for (int ii:l) {
+			sum += ii;
+			if (ii==4)
+				l.removeAll(List.of(5,9));
+		}
+		assertEquals(sum,8);
+		DynamicList<Integer> l4 = new DynamicList<>(3,4,5,6,7);
+		assertEquals(l2.intersection(l4).toString(),"{3, 4, 5}");
+		assertEquals(l2.difference(l4).toString(),"{6, 7, 1, 2}");
+	}
+
+	@Test
+	void testSortList() {
+		Random rng = new Random(1);
+		for (DynamicList.Option option: DynamicList.Option.values()) {
+			DynamicList<int[]> l = new DynamicList<>(option);
+			List<int[]> ref = new ArrayList<>();
+			for (int i=0; i<1000; i++) {
+				// nearly sorted, with a descending tail
+				int key = i<500 ? i/10 : (i<900 ? rng.nextInt(50) : 1000-i);
+				int[] item = {key,i};
+				l.add(item);
+				ref.add(item);
+			}
+			Comparator<int[]> byKey = Comparator.comparingInt(a->a[0]);
+			l.sortList(byKey);
+			ref.sort(byKey); // stable
+			assertTrue(l.isSorted(byKey));
+			assertEquals(l.size(),ref.size());
+			int k=0;
+			for (int[] item:l)
+				assertSame(item,ref.get(k++));
+			assertSame(l.get(999),ref.get(999));
+			assertSame(l.getLast(),ref.get(999));
+			assertSame(l.descendingIterator().next(),ref.get(999));
+		}
+		DynamicList<Integer> l = new DynamicList<>(5,4,3,2,1);
+		l.sort(null);
+		assertEquals(l.toString(),"{1, 2, 3, 4, 5}");
+		l.sortList(Comparator.reverseOrder());
+		assertEquals(l.toString(),"{5, 4, 3, 2, 1}");
+	}
+
+	@Test
+	void testSpliterator() {
+		for (DynamicList.Option option: DynamicList.Option.values()) {
+			DynamicList<Integer> l = new DynamicList<>(option);
+			for (int i=0; i<100000; i++)
+				l.add(i);
+			Spliterator<Integer> s = l.spliterator();
+			assertTrue(s.hasCharacteristics(Spliterator.SIZED));
+			assertEquals(s.estimateSize(),100000);
+			Spliterator<Integer> prefix = s.trySplit();
+			assertEquals(prefix.estimateSize()+s.estimateSize(),100000);
+			assertEquals(l.parallelStream().mapToLong(i->i).sum(),99999L*100000/2);
+			assertEquals(l.parallelStream().filter(i->i%7==0).count(),14286);
+			assertEquals(l.parallelStream().collect(Collectors.toList()),l);
+		}
+	}
+
 //	@Test
 //	void testCorrectingIterator() {
 //		fail("Not yet implemented");
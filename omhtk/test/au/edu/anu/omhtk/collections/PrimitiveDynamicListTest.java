@@ -0,0 +1,177 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.junit.jupiter.api.Test;
+
+class PrimitiveDynamicListTest {
+
+	@Test
+	void testIntDynamicList() {
+		IntDynamicList l = new IntDynamicList(1,2,3,4,5);
+		assertEquals(l.size(),5);
+		assertEquals(l.toString(),"{1, 2, 3, 4, 5}");
+		assertEquals(l.get(3),4);
+		assertEquals(l.set(3,40),4);
+		assertEquals(l.removeAt(3),40);
+		l.add(1,10);
+		assertEquals(l.toString(),"{1, 10, 2, 3, 5}");
+		assertTrue(l.contains(10));
+		assertEquals(l.indexOf(10),1);
+		assertEquals(l.indexOf(4),-1);
+		assertTrue(l.removeFirstOccurrence(10));
+		assertFalse(l.removeFirstOccurrence(10));
+		l.push(0);
+		assertEquals(l.getFirst(),0);
+		assertEquals(l.getLast(),5);
+		assertEquals(l.pop(),0);
+		assertEquals(l.removeLast(),5);
+		assertArrayEquals(l.toArray(),new int[] {1,2,3});
+		assertEquals(l.stream().sum(),6);
+		l.clear();
+		assertTrue(l.isEmpty());
+		assertThrows(NoSuchElementException.class,()->l.removeFirst());
+		assertThrows(IndexOutOfBoundsException.class,()->l.get(0));
+		assertEquals(l.peekFirst(-1),-1);
+		assertEquals(l.pollLast(-1),-1);
+		l.addAll(1,2,3);
+		assertEquals(l.peekFirst(-1),1);
+		assertEquals(l.peekLast(-1),3);
+		assertEquals(l.pollFirst(-1),1);
+		assertEquals(l.pollLast(-1),3);
+		assertEquals(l.pollLast(-1),2);
+		assertEquals(l.pollFirst(-1),-1);
+	}
+
+	@Test
+	void testCorrectingIterator() {
+		IntDynamicList l = new IntDynamicList();
+		for (int i=0; i<100; i++)
+			l.add(i);
+		int sum = 0;
+		PrimitiveIterator.OfInt it = l.iterator();
+		while (it.hasNext()) {
+			int i = it.nextInt();
+			sum += i;
+			// removes the next two values and appends a new one
+			if (i%3==0 && i<99) {
+				l.removeFirstOccurrence(i+1);
+				l.removeFirstOccurrence(i+2);
+				l.add(-1);
+			}
+		}
+		assertEquals(sum,(0+99)*34/2-33);
+		assertEquals(l.size(),67);
+		// slots are reused once iteration is over
+		for (int i=0; i<l.size(); i++)
+			assertEquals(l.get(i),i<34?3*i:-1);
+		while (!l.isEmpty())
+			l.removeFirst();
+		for (int i=0; i<1000; i++)
+			l.addFirst(i);
+		assertEquals(l.getLast(),0);
+		assertEquals(l.getFirst(),999);
+		// abandoned iterators and streams do not prevent reuse, but an iterator left
+		// on a reused slot fails
+		assertEquals(l.stream().filter(i->i<500).findFirst().getAsInt(),499);
+		it = l.iterator();
+		assertEquals(it.nextInt(),999);
+		l.removeAt(1);
+		for (int i=0; i<2000; i++) {
+			l.addLast(i);
+			l.removeLast();
+		}
+		assertThrows(ConcurrentModificationException.class,it::hasNext);
+		assertEquals(l.size(),999);
+		// clearing stops running iterators
+		it = l.iterator();
+		it.nextInt();
+		l.clear();
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	void testDescendingIterator() {
+		IntDynamicList l = new IntDynamicList();
+		for (int i=0; i<10; i++)
+			l.add(i);
+		StringBuilder sb = new StringBuilder();
+		PrimitiveIterator.OfInt it = l.descendingIterator();
+		while (it.hasNext()) {
+			int i = it.nextInt();
+			sb.append(i);
+			// removes the next two values (backwards) while looping
+			if (i==7) {
+				l.removeFirstOccurrence(6);
+				l.removeFirstOccurrence(5);
+			}
+			if (i%2==0)
+				it.remove();
+		}
+		assertEquals(sb.toString(),"98743210");
+		assertEquals(l.toString(),"{1, 3, 7, 9}");
+		// removing the slot the iterator points at, and the following ones
+		it = l.descendingIterator();
+		assertEquals(it.nextInt(),9);
+		l.removeFirstOccurrence(7);
+		l.removeFirstOccurrence(3);
+		assertEquals(it.nextInt(),1);
+		assertFalse(it.hasNext());
+		assertFalse(new LongDynamicList().descendingIterator().hasNext());
+		assertEquals(new DoubleDynamicList(0.5,1.5).descendingIterator().nextDouble(),1.5);
+	}
+
+	@Test
+	void testLongDynamicList() {
+		LongDynamicList l = new LongDynamicList(1L<<40,2,3);
+		assertEquals(l.getFirst(),1L<<40);
+		assertEquals(l.stream().sum(),(1L<<40)+5);
+		l.offerFirst(0);
+		assertEquals(l.indexOf(3),3);
+		assertEquals(l.toShortString(),"[LongDynamicList of 4 element(s)]");
+	}
+
+	@Test
+	void testDoubleDynamicList() {
+		DoubleDynamicList l = new DoubleDynamicList(0.5,Double.NaN,1.5);
+		assertTrue(l.contains(Double.NaN));
+		assertEquals(l.lastIndexOf(1.5),2);
+		assertEquals(l.removeAt(1),Double.NaN);
+		assertEquals(l.stream().sum(),2.0);
+		assertEquals(l.toString(),"{0.5, 1.5}");
+	}
+
+}
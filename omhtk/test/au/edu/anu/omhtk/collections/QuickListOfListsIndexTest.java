@@ -0,0 +1,63 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class QuickListOfListsIndexTest {
+
+	@Test
+	void testLiveIndexKept() {
+		List<Integer> list1 = new ArrayList<>(List.of(1,2,3));
+		List<Integer> list2 = new LinkedList<>(List.of(4,5));
+		QuickListOfLists<Integer> live = new QuickListOfLists<>(true,list1,list2);
+		assertEquals(live.get(live.size()-1),5);
+		int[] index = live.index();
+		assertNotNull(index);
+		// random draws in live mode: size() and get() share the same index
+		list1.add(0);
+		list2.remove(0);
+		for (int i=0; i<live.size(); i++)
+			assertEquals(live.get(i),List.of(1,2,3,0,5).get(i));
+		assertFalse(live.isEmpty());
+		assertSame(live.index(),index);
+		// only a new contained list requires a new index
+		live.addList(List.of(6));
+		assertEquals(live.get(live.size()-1),6);
+		assertNotSame(live.index(),index);
+	}
+
+}
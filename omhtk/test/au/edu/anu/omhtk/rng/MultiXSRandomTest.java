@@ -0,0 +1,73 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MultiXSRandomTest {
+
+	@Test
+	void testLanesMatchXSRandom() {
+		MultiXSRandom m = new MultiXSRandom(1234L);
+		int nl = m.nLanes();
+		XSRandom[] x = new XSRandom[nl];
+		for (int i = 0;i<nl;i++)
+			x[i] = new XSRandom(m.getLaneSeed(i));
+		// size not a multiple of the number of lanes
+		int n = 10*nl+3;
+		int[] ints = new int[n];
+		m.nextInts(ints);
+		for (int k = 0;k<n;k++)
+			assertEquals(ints[k],x[k%nl].nextInt());
+		long[] longs = new long[n];
+		m.nextLongs(longs);
+		for (int k = 0;k<n;k++)
+			assertEquals(longs[k],x[k%nl].nextLong());
+		double[] doubles = new double[n];
+		m.nextDoubles(doubles);
+		for (int k = 0;k<n;k++) {
+			assertEquals(doubles[k],x[k%nl].nextDouble());
+			assertTrue(doubles[k]>=0.0 && doubles[k]<1.0);
+		}
+		for (int i = 0;i<nl;i++)
+			assertEquals(m.getLaneSeed(i),x[i].getSeed());
+	}
+
+	@Test
+	void testSeeding() {
+		assertEquals(new MultiXSRandom(3,1L).nLanes(),3);
+		assertEquals(new MultiXSRandom(5L,6L).getLaneSeed(1),6L);
+		assertThrows(IllegalArgumentException.class,()->new MultiXSRandom(1L,0L));
+		assertThrows(IllegalArgumentException.class,()->new MultiXSRandom(0,1L));
+	}
+
+}
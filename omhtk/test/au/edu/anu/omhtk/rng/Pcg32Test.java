@@ -34,6 +34,9 @@ package au.edu.anu.omhtk.rng;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
@@ -62,4 +65,213 @@ class Pcg32Test {
 
 	}
 
+	@Test
+	void testAdvance() {
+		Pcg32 r1 = new Pcg32(42L,54L);
+		Pcg32 r2 = new Pcg32(42L,54L);
+		for (int i = 0;i<12345;i++)
+			r1.nextInt();
+		r2.advance(12345);
+		for (int i = 0;i<100;i++)
+			assertEquals(r2.nextInt(),r1.nextInt());
+		// going backwards
+		int x = r1.nextInt();
+		r1.advance(-1);
+		assertEquals(r1.nextInt(),x);
+		r2.advance(0);
+		assertEquals(r2.nextInt(),x);
+	}
+
+	@Test
+	void testSplit() {
+		Pcg32 master1 = new Pcg32(42L,54L);
+		Pcg32 master2 = new Pcg32(42L,54L);
+		Pcg32 s1 = master1.split();
+		Pcg32 s2 = master1.split();
+		Pcg32 t1 = master2.split();
+		Pcg32 t2 = master2.split();
+		int same = 0;
+		for (int i = 0;i<100;i++) {
+			int a = s1.nextInt(), b = s2.nextInt();
+			assertEquals(t1.nextInt(),a);
+			assertEquals(t2.nextInt(),b);
+			if (a==b) same++;
+		}
+		assertTrue(same<2);
+		assertTrue(new SynchronizedPcg32(1L,2L).split() instanceof SynchronizedPcg32);
+	}
+
+	@Test
+	void testSplittableGenerator() {
+		SplittableGenerator r = new Pcg32(42L,54L);
+		assertEquals(r.ints(1000).count(),1000);
+		assertTrue(r.ints(1000,-5,5).allMatch(i->i>=-5 && i<5));
+		assertTrue(r.doubles(100000,1.0,2.0).parallel().allMatch(d->d>=1.0 && d<2.0));
+		assertEquals(r.longs(100000).parallel().count(),100000);
+		assertEquals(r.splits(10).map(g->g.nextLong()).collect(Collectors.toSet()).size(),10);
+		assertTrue(r.split() instanceof Pcg32);
+		// sequential streams draw from the generator itself
+		Pcg32 r1 = new Pcg32(42L,54L);
+		Pcg32 r2 = new Pcg32(42L,54L);
+		int[] a = r1.ints(10).toArray();
+		for (int i = 0;i<10;i++)
+			assertEquals(a[i],r2.nextInt());
+		assertThrows(IllegalArgumentException.class,()->r1.ints(10,5,5));
+		assertThrows(IllegalArgumentException.class,()->r1.doubles(-1));
+		// reseeding forgets cached gaussian values
+		RandomGenerator g = r1;
+		r1.seed(1L,1L);
+		double x = g.nextGaussian();
+		r1.seed(1L,1L);
+		assertEquals(g.nextGaussian(),x);
+	}
+
+	@Test
+	void testBulk() {
+		Pcg32 r1 = new Pcg32(42L,54L);
+		Pcg32 r2 = new Pcg32(42L,54L);
+		int n = 1001;
+		int[] ints = new int[n];
+		r1.nextInts(ints);
+		for (int i = 0;i<n;i++)
+			assertEquals(ints[i],r2.nextInt());
+		r1.nextInts(ints,17);
+		for (int i = 0;i<n;i++)
+			assertEquals(ints[i],r2.nextInt(17));
+		r1.nextInts(ints,64);
+		for (int i = 0;i<n;i++)
+			assertEquals(ints[i],r2.nextInt(64));
+		r1.nextInts(ints,0x60000001);
+		for (int i = 0;i<n;i++)
+			assertEquals(ints[i],r2.nextInt(0x60000001));
+		long[] longs = new long[n];
+		r1.nextLongs(longs);
+		for (int i = 0;i<n;i++)
+			assertEquals(longs[i],r2.nextLong());
+		float[] floats = new float[n];
+		r1.nextFloats(floats);
+		for (int i = 0;i<n;i++)
+			assertEquals(floats[i],r2.nextFloat());
+		double[] doubles = new double[n];
+		r1.nextDoubles(doubles);
+		for (int i = 0;i<n;i++)
+			assertEquals(doubles[i],r2.nextDouble());
+		// odd sizes leave a cached gaussian, which the next call must use
+		r1.nextGaussians(doubles);
+		for (int i = 0;i<n;i++)
+			assertEquals(doubles[i],r2.nextGaussian());
+		r1.nextGaussians(doubles);
+		for (int i = 0;i<n;i++)
+			assertEquals(doubles[i],r2.nextGaussian());
+		assertEquals(r1.nextInt(),r2.nextInt());
+		// generic implementation
+		XSRandom x1 = new XSRandom(1234L);
+		XSRandom x2 = new XSRandom(1234L);
+		x1.nextDoubles(doubles);
+		for (int i = 0;i<n;i++)
+			assertEquals(doubles[i],x2.nextDouble());
+	}
+
+	@Test
+	void testBounded() {
+		Pcg32 r = new Pcg32(42L,54L);
+		int n = 700000;
+		for (int bound:new int[] {1,7,8}) {
+			int[] count = new int[bound];
+			for (int i = 0;i<n;i++)
+				count[r.nextInt(bound)]++;
+			for (int c:count)
+				assertEquals((double)c/n,1.0/bound,0.003);
+		}
+		// modulo-biased generators would give 2/3 of values below bound/2
+		int bound = 0x60000000;
+		int low = 0;
+		for (int i = 0;i<n;i++) {
+			int x = r.nextInt(bound);
+			assertTrue(x>=0 && x<bound);
+			if (x<bound/2) low++;
+		}
+		assertEquals((double)low/n,0.5,0.003);
+		for (long lbound:new long[] {1L,2L,10L,1L<<40,Long.MAX_VALUE/3*2,Long.MAX_VALUE}) {
+			low = 0;
+			for (int i = 0;i<100000;i++) {
+				long x = r.nextLong(lbound);
+				assertTrue(x>=0 && x<lbound);
+				if (x<lbound/2) low++;
+			}
+			if (lbound>1)
+				assertEquals((double)low/100000,0.5,0.01);
+		}
+		assertThrows(IllegalArgumentException.class,()->r.nextInt(0));
+		assertThrows(IllegalArgumentException.class,()->r.nextLong(-1L));
+	}
+
+	@Test
+	void testZiggurat() {
+		Pcg32 r = new Pcg32(42L,54L);
+		int n = 1000000;
+		double[] x = new double[n];
+		r.nextGaussians(x);
+		double[] q = {-3.0,-2.0,-1.0,0.0,0.5,1.5,3.0,3.5};
+		double[] cdf = {0.0013499,0.0227501,0.1586553,0.5,0.6914625,0.9331928,0.9986501,0.9997674};
+		double sum = 0.0, sum2 = 0.0;
+		int[] count = new int[q.length];
+		for (double d:x) {
+			sum += d;
+			sum2 += d*d;
+			for (int j = 0;j<q.length;j++)
+				if (d<q[j]) count[j]++;
+		}
+		assertEquals(sum/n,0.0,0.005);
+		assertEquals(sum2/n,1.0,0.005);
+		for (int j = 0;j<q.length;j++)
+			assertEquals((double)count[j]/n,cdf[j],0.002);
+		r.nextExponentials(x);
+		q = new double[] {0.1,0.5,1.0,2.0,4.0,7.0,8.0,10.0};
+		count = new int[q.length];
+		sum = 0.0;
+		for (double d:x) {
+			assertTrue(d>=0.0);
+			sum += d;
+			for (int j = 0;j<q.length;j++)
+				if (d<q[j]) count[j]++;
+		}
+		assertEquals(sum/n,1.0,0.005);
+		for (int j = 0;j<q.length;j++)
+			assertEquals((double)count[j]/n,1.0-Math.exp(-q[j]),0.002);
+		// reproducibility
+		Pcg32 r1 = new Pcg32(1L,2L);
+		Pcg32 r2 = new Pcg32(1L,2L);
+		r1.nextGaussians(x);
+		for (int i = 0;i<1000;i++)
+			assertEquals(x[i],r2.nextGaussian());
+	}
+
+	@Test
+	void testSynchronized() throws InterruptedException {
+		Pcg32 r1 = new Pcg32();
+		Pcg32 r2 = new SynchronizedPcg32();
+		r1.seed(1234L,5L);
+		r2.seed(1234L,5L);
+		for (int i = 0;i<1000;i++)
+			assertEquals(r2.nextDouble(),r1.nextDouble());
+		// concurrent draws on a shared generator must use up exactly the same numbers
+		int nThreads = 4, n = 10000;
+		r1.seed(1234L,5L);
+		r2.seed(1234L,5L);
+		Thread[] threads = new Thread[nThreads];
+		for (int t = 0;t<nThreads;t++) {
+			threads[t] = new Thread(()->{
+				for (int i = 0;i<n;i++)
+					r2.nextInt();
+			});
+			threads[t].start();
+		}
+		for (Thread t:threads)
+			t.join();
+		for (int i = 0;i<nThreads*n;i++)
+			r1.nextInt();
+		assertEquals(r2.nextInt(),r1.nextInt());
+	}
+
 }
@@ -0,0 +1,86 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class Pcg64Test {
+
+	@Test
+	void testReference() {
+		// values computed independently with 128-bit integer arithmetic
+		String[] ref = {"9156738886994502234","5969605465081581049","8043339593373539976",
+			"1588483667917280512","7861599483749946374"};
+		Pcg64 r = new Pcg64(42L,-54L);
+		for (String s:ref)
+			assertEquals(Long.toUnsignedString(r.nextLong()),s);
+	}
+
+	@Test
+	void testBulk() {
+		Pcg64 r1 = new Pcg64(42L,54L);
+		Pcg64 r2 = new Pcg64(42L,54L);
+		int n = 1001;
+		long[] longs = new long[n];
+		r1.nextLongs(longs);
+		for (int i = 0;i<n;i++)
+			assertEquals(longs[i],r2.nextLong());
+		double[] doubles = new double[n];
+		r1.nextDoubles(doubles);
+		for (int i = 0;i<n;i++) {
+			assertEquals(doubles[i],r2.nextDouble());
+			assertTrue(doubles[i]>=0.0 && doubles[i]<1.0);
+		}
+		r1.setSeed(1234L);
+		r2.setSeed(1234L);
+		assertEquals(r1.split().nextLong(),r2.split().nextLong());
+	}
+
+	@Test
+	void testFullPrecision() {
+		Pcg64 r = new Pcg64(42L,54L);
+		int n = 1000000;
+		double sum = 0.0;
+		boolean fine = false;
+		for (int i = 0;i<n;i++) {
+			double x = r.nextDoubleFullPrecision();
+			assertTrue(x>=0.0 && x<=1.0);
+			sum += x;
+			// small values have more than 53 bits after the point
+			if (x<0x1.0p-10 && x*0x1.0p53!=Math.rint(x*0x1.0p53))
+				fine = true;
+		}
+		assertEquals(sum/n,0.5,0.002);
+		assertTrue(fine);
+	}
+
+}
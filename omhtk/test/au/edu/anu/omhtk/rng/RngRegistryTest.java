@@ -0,0 +1,85 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package au.edu.anu.omhtk.rng;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class RngRegistryTest {
+
+	@Test
+	void testForTask() {
+		RngRegistry reg1 = new RngRegistry(3);
+		RngRegistry reg2 = new RngRegistry(3);
+		assertEquals(reg1.seedIndex(),3);
+		// same task, same sequence
+		Pcg32 r1 = reg1.forTask(17);
+		Pcg32 r2 = reg2.forTask(17);
+		assertNotSame(r1,r2);
+		for (int i = 0;i<100;i++)
+			assertEquals(r1.nextInt(),r2.nextInt());
+		// different tasks or seeds, different sequences
+		assertNotEquals(reg1.forTask(1).nextLong(),reg1.forTask(2).nextLong());
+		assertNotEquals(reg1.forTask(1).nextLong(),new RngRegistry(4).forTask(1).nextLong());
+		// independent of scheduling
+		double seq = IntStream.range(0,1000).mapToDouble(i->reg1.forTask(i).nextDouble()).sum();
+		double par = IntStream.range(0,1000).parallel().mapToDouble(i->reg2.forTask(i).nextDouble()).sum();
+		assertEquals(par,seq,1e-9);
+		assertThrows(IllegalArgumentException.class,()->reg1.forTask(-1));
+		assertThrows(IllegalArgumentException.class,()->reg1.forTask(RngRegistry.MAX_TASKS));
+		reg1.forTask(RngRegistry.MAX_TASKS-1).nextInt();
+		assertThrows(IndexOutOfBoundsException.class,()->new RngRegistry(RandomSeeds.nSeeds()));
+	}
+
+	@Test
+	void testForThread() throws InterruptedException {
+		RngRegistry reg = new RngRegistry(0);
+		Pcg32 mine = reg.forThread();
+		assertSame(reg.forThread(),mine);
+		Set<Pcg32> others = ConcurrentHashMap.newKeySet();
+		Thread[] threads = new Thread[4];
+		for (int t = 0;t<threads.length;t++) {
+			threads[t] = new Thread(()->others.add(reg.forThread()));
+			threads[t].start();
+		}
+		for (Thread t:threads)
+			t.join();
+		assertEquals(others.size(),4);
+		assertFalse(others.contains(mine));
+		reg.releaseThread();
+		assertNotSame(reg.forThread(),mine);
+	}
+
+}
@@ -77,11 +77,94 @@ class QuickListOfListsTest {
 		assertEquals(listToString(l),"1,2,3,4,5,6,7,8,9,");
 	}
 
+	@Test
+	void testParallelStream() {
+		QuickListOfLists<Integer> l = makeList();
+		assertEquals(l.parallelStream().mapToInt(i->i).sum(),36);
+		List<Integer> big = new ArrayList<>();
+		for (int i=0; i<100000; i++)
+			big.add(i);
+		l = new QuickListOfLists<>(big,big,new LinkedList<>(big));
+		Spliterator<Integer> s = l.spliterator();
+		assertTrue(s.hasCharacteristics(Spliterator.SIZED));
+		assertTrue(s.hasCharacteristics(Spliterator.ORDERED));
+		assertFalse(s.hasCharacteristics(Spliterator.SUBSIZED));
+		assertEquals(s.estimateSize(),300000);
+		assertEquals(l.parallelStream().mapToLong(i->i).sum(),3L*99999*100000/2);
+		assertEquals(l.stream().skip(100000).findFirst().get(),0);
+	}
+
 	@Test
 	void testClear() {
 		QuickListOfLists<Integer> l = makeList();
 		l.clear();
 		assertEquals(listToString(l),"");
+		assertEquals(l.size(),0);
+		assertTrue(l.isEmpty());
+	}
+
+	@Test
+	void testGet() {
+		List<Integer> list = new LinkedList<Integer>();
+		list.add(9);
+		QuickListOfLists<Integer> l = makeList();
+		l.addList(new ArrayList<Integer>());
+		l.addList(list);
+		StringBuilder sb = new StringBuilder();
+		for (int i=0; i<l.size(); i++)
+			sb.append(l.get(i)).append(',');
+		assertEquals(sb.toString(),listToString(l));
+		assertThrows(IndexOutOfBoundsException.class,()->l.get(-1));
+		assertThrows(IndexOutOfBoundsException.class,()->l.get(9));
+		list.add(10);
+		l.refreshSize();
+		assertEquals(l.get(9),10);
+		l.clear();
+		assertThrows(IndexOutOfBoundsException.class,()->l.get(0));
+	}
+
+	@Test
+	void testToArray() {
+		QuickListOfLists<Integer> l = makeList();
+		Object[] a = l.toArray();
+		assertEquals(a.length,8);
+		assertEquals(Arrays.asList(a).toString(),"[1, 2, 3, 4, 5, 6, 7, 8]");
+		Integer[] b = l.toArray(new Integer[0]);
+		assertEquals(Arrays.asList(b).toString(),"[1, 2, 3, 4, 5, 6, 7, 8]");
+		Integer[] c = new Integer[10];
+		assertSame(l.toArray(c),c);
+		assertNull(c[8]);
+		assertTrue(l.containsAll(List.of(2,5,8)));
+		assertFalse(l.containsAll(List.of(2,9)));
+	}
+
+	@Test
+	void testSize() {
+		List<Integer> list1 = new ArrayList<>(List.of(1,2,3));
+		List<Integer> list2 = new LinkedList<>(List.of(4,5));
+		QuickListOfLists<Integer> l = new QuickListOfLists<>(list1,list2);
+		QuickListOfLists<Integer> live = new QuickListOfLists<>(true,list1,list2);
+		assertFalse(l.isLive());
+		assertTrue(live.isLive());
+		assertEquals(l.size(),5);
+		assertEquals(live.size(),5);
+		list1.add(6);
+		list2.clear();
+		assertEquals(l.size(),5);
+		assertEquals(live.size(),4);
+		l.refreshSize();
+		assertEquals(l.size(),4);
+		Iterator<Integer> it = l.iterator();
+		it.next();
+		it.remove();
+		assertEquals(l.size(),3);
+		assertEquals(live.size(),3);
+		// positional access follows size changes in live mode
+		assertEquals(live.get(2),6);
+		list2.add(7);
+		list1.add(0,1);
+		assertEquals(live.get(4),7);
+		assertThrows(IndexOutOfBoundsException.class,()->live.get(5));
 	}
 
 }
@@ -0,0 +1,80 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package fr.cnrs.iees.omhtk.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import au.edu.anu.omhtk.rng.Pcg32;
+
+class AliasSamplerTest {
+
+	@Test
+	void testFrequencies() {
+		double[] weights = { 1.0, 0.0, 3.0, 6.0, 0.5, 0.0, 2.5 };
+		AliasSampler sampler = new AliasSampler(weights);
+		assertEquals(sampler.size(), weights.length);
+		Pcg32 rng = new Pcg32(42L, 54L);
+		int n = 1_300_000;
+		int[] counts = new int[weights.length];
+		for (int i = 0; i < n; i++)
+			counts[sampler.sample(rng)]++;
+		for (int i = 0; i < weights.length; i++)
+			assertEquals(counts[i] / (double) n, weights[i] / 13.0, 0.003);
+		assertEquals(counts[1], 0);
+		assertEquals(counts[5], 0);
+	}
+
+	@Test
+	void testSingleAndUniform() {
+		Pcg32 rng = new Pcg32(1L, 2L);
+		AliasSampler one = new AliasSampler(new double[] { 0.0, 7.0, 0.0 });
+		for (int i = 0; i < 1000; i++)
+			assertEquals(one.sample(rng), 1);
+		AliasSampler flat = new AliasSampler(new double[] { 2.0, 2.0, 2.0, 2.0 });
+		int[] counts = new int[4];
+		for (int i = 0; i < 400_000; i++)
+			counts[flat.sample(rng)]++;
+		for (int c : counts)
+			assertEquals(c / 400_000.0, 0.25, 0.005);
+	}
+
+	@Test
+	void testInvalidWeights() {
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new double[0]));
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new double[] { 0.0, 0.0 }));
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new double[] { 1.0, -1.0 }));
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new double[] { 1.0, Double.NaN }));
+		assertThrows(IllegalArgumentException.class,
+			() -> new AliasSampler(new double[] { 1.0, Double.POSITIVE_INFINITY }));
+	}
+
+}
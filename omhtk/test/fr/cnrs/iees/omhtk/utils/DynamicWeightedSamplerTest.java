@@ -0,0 +1,135 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package fr.cnrs.iees.omhtk.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import au.edu.anu.omhtk.rng.Pcg32;
+
+class DynamicWeightedSamplerTest {
+
+	private static int[] draw(DynamicWeightedSampler sampler, Pcg32 rng, int n) {
+		int[] counts = new int[sampler.size()];
+		for (int i = 0; i < n; i++)
+			counts[sampler.sample(rng)]++;
+		return counts;
+	}
+
+	@Test
+	void testFrequencies() {
+		double[] weights = { 1.0, 0.0, 3.0, 6.0, 0.5, 0.0, 2.5 };
+		DynamicWeightedSampler sampler = new DynamicWeightedSampler(weights);
+		assertEquals(sampler.totalWeight(), 13.0, 1e-12);
+		Pcg32 rng = new Pcg32(42L, 54L);
+		int n = 1_300_000;
+		int[] counts = draw(sampler, rng, n);
+		for (int i = 0; i < weights.length; i++)
+			assertEquals(counts[i] / (double) n, weights[i] / 13.0, 0.003);
+		assertEquals(counts[1], 0);
+		assertEquals(counts[5], 0);
+	}
+
+	@Test
+	void testUpdates() {
+		DynamicWeightedSampler sampler = new DynamicWeightedSampler(5);
+		assertEquals(sampler.totalWeight(), 0.0);
+		Pcg32 rng = new Pcg32(3L, 4L);
+		assertThrows(IllegalStateException.class, () -> sampler.sample(rng));
+		sampler.setWeight(4, 2.0);
+		for (int i = 0; i < 100; i++)
+			assertEquals(sampler.sample(rng), 4);
+		sampler.setWeight(0, 2.0);
+		sampler.setWeight(2, 4.0);
+		sampler.setWeight(4, 0.0);
+		assertEquals(sampler.getWeight(2), 4.0);
+		assertEquals(sampler.totalWeight(), 6.0, 1e-12);
+		int[] counts = draw(sampler, rng, 600_000);
+		assertEquals(counts[0] / 600_000.0, 1.0 / 3.0, 0.005);
+		assertEquals(counts[2] / 600_000.0, 2.0 / 3.0, 0.005);
+		assertEquals(counts[1] + counts[3] + counts[4], 0);
+		// only the last index has a weight
+		sampler.setWeights(new double[] { 0.0, 0.0, 0.0, 0.0, 1e-3 });
+		for (int i = 0; i < 100; i++)
+			assertEquals(sampler.sample(rng), 4);
+	}
+
+	@Test
+	void testAgainstFullScan() {
+		// many random updates, checking partial sums against a plain array
+		Pcg32 rng = new Pcg32(5L, 6L);
+		int n = 37;
+		DynamicWeightedSampler sampler = new DynamicWeightedSampler(n);
+		double[] weights = new double[n];
+		for (int k = 0; k < 10_000; k++) {
+			int i = rng.nextInt(n);
+			weights[i] = rng.nextInt(10);
+			sampler.setWeight(i, weights[i]);
+		}
+		double sum = 0.0;
+		for (double w : weights)
+			sum += w;
+		assertEquals(sampler.totalWeight(), sum, 1e-9);
+		int[] counts = draw(sampler, rng, 1_000_000);
+		for (int i = 0; i < n; i++)
+			assertEquals(counts[i] / 1_000_000.0, weights[i] / sum, 0.003);
+	}
+
+	@Test
+	void testClearedWeights() {
+		// rounding errors must not hide that all weights are zero
+		DynamicWeightedSampler sampler = new DynamicWeightedSampler(2);
+		Pcg32 rng = new Pcg32(7L, 8L);
+		sampler.setWeight(0, 0.1);
+		sampler.setWeight(1, 0.2);
+		sampler.setWeight(0, 0.0);
+		sampler.setWeight(1, 0.0);
+		assertThrows(IllegalStateException.class, () -> sampler.sample(rng));
+		// nor that some tiny weights are left
+		sampler.setWeight(0, 0.1);
+		sampler.setWeight(1, 0.2);
+		sampler.setWeight(0, 0.0);
+		sampler.setWeight(1, Double.MIN_VALUE);
+		for (int i = 0; i < 100; i++)
+			assertEquals(sampler.sample(rng), 1);
+		sampler.setWeights(new double[2]);
+		assertThrows(IllegalStateException.class, () -> sampler.sample(rng));
+	}
+
+	@Test
+	void testInvalidWeights() {
+		DynamicWeightedSampler sampler = new DynamicWeightedSampler(3);
+		assertThrows(IllegalArgumentException.class, () -> sampler.setWeight(0, -1.0));
+		assertThrows(IllegalArgumentException.class, () -> sampler.setWeight(0, Double.NaN));
+		assertThrows(IllegalArgumentException.class, () -> sampler.setWeights(new double[2]));
+	}
+
+}
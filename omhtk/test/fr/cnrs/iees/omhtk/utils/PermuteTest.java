@@ -0,0 +1,104 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package fr.cnrs.iees.omhtk.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+
+import org.junit.jupiter.api.Test;
+
+class PermuteTest {
+
+	@Test
+	void testGetPemutationIndices() {
+		int[][] p = Permute.getPemutationIndices(3);
+		assertEquals(Arrays.deepToString(p),"[[0, 1, 2], [0, 2, 1], [2, 0, 1], [2, 1, 0], [1, 2, 0], [1, 0, 2]]");
+		assertEquals(Permute.getPemutationIndices(0).length,1);
+		assertThrows(IllegalArgumentException.class,()->Permute.getPemutationIndices(13));
+		assertEquals(Permute.nPermutations(20),2432902008176640000L);
+		assertThrows(IllegalArgumentException.class,()->Permute.nPermutations(21));
+	}
+
+	@Test
+	void testIterator() {
+		int n = 7;
+		Set<String> perms = new HashSet<>();
+		Iterator<int[]> it = Permute.iterator(n);
+		int[] previous = null;
+		long rank = 0;
+		while (it.hasNext()) {
+			int[] p = it.next();
+			assertTrue(perms.add(Arrays.toString(p)));
+			assertArrayEquals(Permute.unrank(n,rank++),p);
+			// successive permutations differ by one adjacent swap
+			if (previous!=null) {
+				int diff = 0;
+				for (int i = 0;i<n;i++)
+					if (p[i]!=previous[i]) diff++;
+				assertEquals(diff,2);
+			}
+			previous = p.clone();
+		}
+		assertEquals(perms.size(),5040);
+	}
+
+	@Test
+	void testUnrank() {
+		int n = 20;
+		int[] last = Permute.unrank(n,Permute.nPermutations(n)-1);
+		int[] sorted = last.clone();
+		Arrays.sort(sorted);
+		for (int i = 0;i<n;i++)
+			assertEquals(sorted[i],i);
+		assertThrows(IndexOutOfBoundsException.class,()->Permute.unrank(3,6));
+	}
+
+	@Test
+	void testSpliterator() {
+		int n = 8;
+		// splitting after the start
+		Spliterator<int[]> s = Permute.spliterator(n);
+		s.tryAdvance(p->{});
+		Spliterator<int[]> prefix = s.trySplit();
+		assertEquals(prefix.estimateSize()+s.estimateSize(),40319);
+		long[] rank = {1};
+		prefix.forEachRemaining(p->assertArrayEquals(Permute.unrank(n,rank[0]++),p));
+		s.forEachRemaining(p->assertArrayEquals(Permute.unrank(n,rank[0]++),p));
+		assertEquals(rank[0],40320);
+		// parallel
+		assertEquals(Permute.stream(9,true).map(Arrays::toString).distinct().count(),362880);
+	}
+
+}
@@ -0,0 +1,127 @@
+/**************************************************************************
+ *  OMHTK - One More Handy Tool Kit                                       *
+ *                                                                        *
+ *  Copyright 2018: Shayne FLint, Jacques Gignoux & Ian D. Davies         *
+ *       shayne.flint@anu.edu.au                                          *
+ *       jacques.gignoux@upmc.fr                                          *
+ *       ian.davies@anu.edu.au                                            * 
+ *                                                                        *
+ *  OMHTK is a bunch of useful, very generic interfaces for designing     *
+ *  consistent, plus some other utilities. The kind of things you need    *
+ *  in all software projects and keep rebuilding all the time.            *
+ *                                                                        *
+ **************************************************************************                                       
+ *  This file is part of OMHTK (One More Handy Tool Kit).                 *
+ *                                                                        *
+ *  OMHTK is free software: you can redistribute it and/or modify         *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  OMHTK is distributed in the hope that it will be useful,              *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *                         
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with UIT.  If not, see <https://www.gnu.org/licenses/gpl.html>. *
+ *                                                                        *
+ **************************************************************************/
+package fr.cnrs.iees.omhtk.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import au.edu.anu.omhtk.collections.DynamicList;
+import au.edu.anu.omhtk.collections.QuickListOfLists;
+import au.edu.anu.omhtk.rng.Pcg32;
+
+class SamplingTest {
+
+	private static List<Integer> range(int from, int to) {
+		List<Integer> result = new ArrayList<>();
+		for (int i = from; i < to; i++)
+			result.add(i);
+		return result;
+	}
+
+	@Test
+	void testSampleIndices() {
+		Pcg32 rng = new Pcg32(1L, 2L);
+		int n = 10, k = 3, reps = 200_000;
+		int[] counts = new int[n];
+		for (int r = 0; r < reps; r++) {
+			int[] indices = Sampling.sampleIndices(n, k, rng);
+			assertEquals(indices.length, k);
+			for (int i = 0; i < k; i++) {
+				if (i > 0)
+					assertTrue(indices[i] > indices[i - 1]);
+				counts[indices[i]]++;
+			}
+		}
+		for (int c : counts)
+			assertEquals(c / (double) reps, k / (double) n, 0.005);
+		int[] all = Sampling.sampleIndices(5, 5, rng);
+		assertArrayEquals(all, new int[] { 0, 1, 2, 3, 4 });
+		assertEquals(Sampling.sampleIndices(5, 0, rng).length, 0);
+		assertThrows(IllegalArgumentException.class, () -> Sampling.sampleIndices(5, 6, rng));
+	}
+
+	@Test
+	void testSampleCollections() {
+		Pcg32 rng = new Pcg32(3L, 4L);
+		DynamicList<Integer> dl = new DynamicList<>();
+		dl.addAll(range(0, 1000));
+		QuickListOfLists<Integer> ql = new QuickListOfLists<>(range(0, 400), range(400, 400), range(400, 1000));
+		for (var population : List.of(dl, ql, new LinkedList<>(range(0, 1000)), range(0, 1000))) {
+			List<Integer> s = Sampling.sample(population, 50, rng);
+			assertEquals(s.size(), 50);
+			assertEquals(new HashSet<>(s).size(), 50);
+			for (int i = 1; i < s.size(); i++)
+				assertTrue(s.get(i) > s.get(i - 1));
+		}
+		assertEquals(Sampling.sample(range(0, 5), 10, rng), range(0, 5));
+		// uniformity on a non random-access collection
+		int reps = 100_000;
+		int[] counts = new int[20];
+		LinkedList<Integer> small = new LinkedList<>(range(0, 20));
+		for (int r = 0; r < reps; r++)
+			for (int i : Sampling.sample(small, 4, rng))
+				counts[i]++;
+		for (int c : counts)
+			assertEquals(c / (double) reps, 0.2, 0.006);
+	}
+
+	@Test
+	void testReservoirSample() {
+		Pcg32 rng = new Pcg32(5L, 6L);
+		int n = 50, k = 5, reps = 100_000;
+		int[] counts = new int[n];
+		List<Integer> population = range(0, n);
+		for (int r = 0; r < reps; r++) {
+			List<Integer> s = Sampling.reservoirSample(population, k, rng);
+			assertEquals(s.size(), k);
+			assertEquals(new HashSet<>(s).size(), k);
+			for (int i : s)
+				counts[i]++;
+		}
+		for (int c : counts)
+			assertEquals(c / (double) reps, k / (double) n, 0.005);
+		// large stream, never stored
+		List<Integer> s = Sampling.reservoirSample(IntStream.range(0, 3_000_000).boxed(), 100, rng);
+		assertEquals(s.size(), 100);
+		assertEquals(new HashSet<>(s).size(), 100);
+		// short populations
+		assertEquals(Sampling.reservoirSample(range(0, 3), 10, rng), range(0, 3));
+		assertTrue(Sampling.reservoirSample(range(0, 3), 0, rng).isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> Sampling.reservoirSample(range(0, 3), -1, rng));
+	}
+
+}
@@ -2,11 +2,21 @@ package fr.cnrs.iees.omhtk.utils;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import au.edu.anu.omhtk.rng.Pcg32;
+
 class ShuffleTest {
 
 	@Test
@@ -30,4 +40,87 @@ class ShuffleTest {
 		assertEquals(sum,trgSum);
 	}
 
+	@Test
+	void testIntShuffle() {
+		int n = 1000;
+		Random r1 = new Random(42);
+		Random r2 = new Random(42);
+		int[] buffer = new int[n];
+		assertSame(Shuffle.shuffleIndices(buffer,r1),buffer);
+		// same as Collections.shuffle()
+		List<Integer> list = new ArrayList<>();
+		for (int i = 0;i<n;i++)
+			list.add(i);
+		Collections.shuffle(list,r2);
+		for (int i = 0;i<n;i++)
+			assertEquals(buffer[i],list.get(i));
+		int[] sorted = buffer.clone();
+		Arrays.sort(sorted);
+		for (int i = 0;i<n;i++)
+			assertEquals(sorted[i],i);
+		assertEquals(Shuffle.shuffleIndices(n).length,n);
+	}
+
+	@Test
+	void testParallelShuffle() throws InterruptedException, ExecutionException {
+		int n = 1000003;
+		int[] a1 = Shuffle.parallelShuffleIndices(new int[n],new Pcg32(1L,2L));
+		int[] sorted = a1.clone();
+		Arrays.sort(sorted);
+		for (int i = 0;i<n;i++)
+			assertEquals(sorted[i],i);
+		// independent of the number of threads
+		ForkJoinPool pool1 = new ForkJoinPool(1);
+		ForkJoinPool pool4 = new ForkJoinPool(4);
+		int[] a2 = pool1.submit(()->Shuffle.parallelShuffleIndices(new int[n],new Pcg32(1L,2L))).get();
+		int[] a3 = pool4.submit(()->Shuffle.parallelShuffleIndices(new int[n],new Pcg32(1L,2L))).get();
+		pool1.shutdown();
+		pool4.shutdown();
+		assertArrayEquals(a2,a1);
+		assertArrayEquals(a3,a1);
+		// shuffling an existing array
+		int[] a4 = new int[n];
+		for (int i = 0;i<n;i++)
+			a4[i] = i;
+		Shuffle.parallelShuffle(a4,new Pcg32(1L,2L));
+		assertArrayEquals(a4,a1);
+	}
+
+	@Test
+	void testParallelShuffleUniformity() {
+		// tiny leaves to exercise merges: all 5! permutations equally likely
+		Random r = new Pcg32(3L,4L);
+		int nRep = 120000;
+		Map<String,Integer> count = new HashMap<>();
+		for (int rep = 0;rep<nRep;rep++) {
+			int[] a = {0,1,2,3,4};
+			Shuffle.parallelShuffle(a,r,1,false);
+			count.merge(Arrays.toString(a),1,Integer::sum);
+		}
+		assertEquals(count.size(),120);
+		for (int c:count.values())
+			assertEquals((double)c/nRep,1.0/120,0.0015);
+	}
+
+	@Test
+	void testPartialShuffle() {
+		Random r = new Random(42);
+		int n = 10, k = 3, nRep = 100000;
+		int[] values = new int[n];
+		int[] count = new int[n];
+		for (int rep = 0;rep<nRep;rep++) {
+			Shuffle.shuffleIndices(values,r);
+			Shuffle.partialShuffle(values,k,r);
+			for (int i = 0;i<k;i++)
+				count[values[i]]++;
+			int[] sorted = values.clone();
+			Arrays.sort(sorted);
+			for (int i = 0;i<n;i++)
+				assertEquals(sorted[i],i);
+		}
+		for (int c:count)
+			assertEquals((double)c/nRep,(double)k/n,0.01);
+		assertThrows(IllegalArgumentException.class,()->Shuffle.partialShuffle(values,n+1,r));
+	}
+
 }